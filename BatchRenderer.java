@@ -0,0 +1,221 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+/**
+ * This class renders doilies without a window so they can be made on a machine with no display
+ * Every stroke file and gallery archive in the input directory is replayed at the chosen size and number of sectors
+ * 		and written to the output directory as a PNG of the same name
+ *
+ * Files are rendered by a fixed number of worker threads fed from a bounded queue. When the queue is full
+ * 		the thread listing the files renders the next one itself, so a large directory never queues more than
+ * 		a few files ahead of the workers
+ *
+ * Usage: BatchRenderer inputDir outputDir [--size pixels] [--sectors count] [--threads count]
+ *
+ */
+public class BatchRenderer {
+	// Strokes are stored in the coordinates of the window, which is drawn at this size
+	public static final int DESIGN_SIZE = 650;
+
+	private static final String STROKE_EXTENSION = ".txt";
+	private static final String ARCHIVE_EXTENSION = ".doily";
+
+	// Each worker keeps its own renderer as the renderer reuses its buffers between strokes
+	private static final ThreadLocal<DoilyRenderer> renderers = new ThreadLocal<DoilyRenderer>() {
+		protected DoilyRenderer initialValue() {
+			DoilyRenderer renderer = new DoilyRenderer();
+			// Files are already rendered in parallel so each renderer stays on its own thread
+			renderer.setParallel(false);
+			renderer.setStrategy(DoilyRenderer.Strategy.TRANSFORM);
+			return renderer;
+		}
+	};
+
+	// Task renders a single file and returns how long it took
+	static class renderTask implements Callable<Long> {
+		private Path input = null;
+		private Path output = null;
+		private int size = 0;
+		private double sectors = 0;
+
+		public renderTask(Path input, Path output, int size, double sectors) {
+			this.input = input;
+			this.output = output;
+			this.size = size;
+			this.sectors = sectors;
+		}
+
+		public Long call() throws IOException {
+			long start = System.nanoTime();
+			BufferedImage doily = null;
+			if (input.getFileName().toString().endsWith(ARCHIVE_EXTENSION)) {
+				doily = render(DoilyArchive.open(input), size, sectors);
+			} else {
+				doily = render(StrokeTextFile.read(input), size, sectors);
+			}
+			ImageIO.write(doily, "png", output.toFile());
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("%s %.1f ms%n", input.getFileName(), elapsed / 1e6);
+			return elapsed;
+		}
+	}
+
+	/**
+	 * Method replays every drawn stroke of a history onto a new image
+	 * @param history the strokes to draw, in the coordinates of a DESIGN_SIZE square window
+	 * @param size width and height of the image in pixels
+	 * @param sectors the number of sectors to repeat each stroke in
+	 * @return the rendered doily
+	 */
+	public static BufferedImage render(StrokeHistory history, int size, double sectors) {
+		BufferedImage doily = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		DoilyRenderer renderer = renderers.get();
+		if (size == DESIGN_SIZE) {
+			renderer.clearView();
+		} else {
+			renderer.setView(DESIGN_SIZE, DESIGN_SIZE, (double) size / DESIGN_SIZE, 0, 0);
+		}
+		for (int i = 0; i < history.size(); i++) {
+			renderer.render(doily, history.get(i), sectors);
+		}
+		return doily;
+	}
+
+	/**
+	 * Method replays an archive straight from its mapped file onto a new image
+	 * @param archive the strokes to draw, in the coordinates of the canvas they were saved from
+	 * @param size width and height of the image in pixels
+	 * @param sectors the number of sectors to repeat each stroke in
+	 * @return the rendered doily
+	 */
+	public static BufferedImage render(DoilyArchive archive, int size, double sectors) {
+		BufferedImage doily = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		DoilyRenderer renderer = renderers.get();
+		if (size == archive.getCanvasWidth() && size == archive.getCanvasHeight()) {
+			renderer.clearView();
+		} else {
+			double scale = (double) size / Math.max(archive.getCanvasWidth(), archive.getCanvasHeight());
+			renderer.setView(archive.getCanvasWidth(), archive.getCanvasHeight(), scale,
+					(size - archive.getCanvasWidth() * scale) / 2, (size - archive.getCanvasHeight() * scale) / 2);
+		}
+		archive.replay(renderer, doily, sectors);
+		return doily;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		// Set before any AWT class is loaded so no display is needed
+		System.setProperty("java.awt.headless", "true");
+
+		if (args.length < 2) {
+			printUsage();
+			return;
+		}
+		Path inputDir = Paths.get(args[0]);
+		Path outputDir = Paths.get(args[1]);
+		int size = DESIGN_SIZE;
+		double sectors = 30;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for (int i = 2; i < args.length; i++) {
+			if (i + 1 == args.length) {
+				printUsage();
+				return;
+			}
+			switch (args[i]) {
+				case "--size":
+					size = Integer.parseInt(args[++i]);
+					break;
+				case "--sectors":
+					sectors = Double.parseDouble(args[++i]);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				default:
+					printUsage();
+					return;
+			}
+		}
+		if (size <= 0 || sectors < 1 || threads <= 0) {
+			printUsage();
+			return;
+		}
+		Files.createDirectories(outputDir);
+
+		// Bounded queue with the caller rendering when it is full keeps memory flat for any number of files
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+
+		List<Path> inputs = new ArrayList<Path>();
+		List<Future<Long>> results = new ArrayList<Future<Long>>();
+		long start = System.nanoTime();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(inputDir,
+				"*{" + STROKE_EXTENSION + "," + ARCHIVE_EXTENSION + "}")) {
+			for (Path input : files) {
+				String name = input.getFileName().toString();
+				name = name.substring(0, name.lastIndexOf('.')) + ".png";
+				inputs.add(input);
+				results.add(pool.submit(new renderTask(input, outputDir.resolve(name), size, sectors)));
+			}
+		}
+		pool.shutdown();
+
+		List<Long> latencies = new ArrayList<Long>();
+		for (int i = 0; i < results.size(); i++) {
+			try {
+				latencies.add(results.get(i).get());
+			} catch (ExecutionException e) {
+				System.err.println(inputs.get(i).getFileName() + " failed: " + e.getCause().getMessage());
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		printSummary(latencies, results.size(), elapsed, threads);
+	}
+
+	// Method prints the throughput of the whole run and the spread of the time taken for each file
+	private static void printSummary(List<Long> latencies, int fileCount, long elapsed, int threads) {
+		System.out.printf("%d of %d files rendered in %.2f s with %d threads, %.2f doilies/sec%n",
+				latencies.size(), fileCount, elapsed / 1e9, threads, latencies.size() / (elapsed / 1e9));
+		if (latencies.isEmpty()) {
+			return;
+		}
+
+		Collections.sort(latencies);
+		long total = 0;
+		for (long latency : latencies) {
+			total += latency;
+		}
+		System.out.printf("latency ms: min %.1f, mean %.1f, p50 %.1f, p95 %.1f, max %.1f%n",
+				latencies.get(0) / 1e6,
+				total / 1e6 / latencies.size(),
+				percentile(latencies, 50) / 1e6,
+				percentile(latencies, 95) / 1e6,
+				latencies.get(latencies.size() - 1) / 1e6);
+	}
+
+	// Method returns the nearest rank percentile of sorted values
+	private static long percentile(List<Long> sorted, int percent) {
+		int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+		return sorted.get(Math.max(0, rank - 1));
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: BatchRenderer inputDir outputDir [--size pixels] [--sectors count] [--threads count]");
+		System.err.println("Renders every " + STROKE_EXTENSION + " stroke file and " + ARCHIVE_EXTENSION
+				+ " archive in inputDir to a PNG in outputDir");
+	}
+}
@@ -313,6 +313,20 @@ public class ControlPanel extends JPanel {
 		// Mouse sensitivity JSpinner is added to the control panel
 		this.add(sectorPanel);
 		
+		// Label added to the side of the JSpinner to identify it as there is no native tag
+		sectorPanel.add(new JLabel(" SIMPLIFY "));
+		// Tolerance is given in pixels, 0 stores every point sampled
+		SpinnerModel simplifySM = new SpinnerNumberModel(0.5, 0.0, 5.0, 0.25);
+		JSpinner simplifyCounter = new JSpinner(simplifySM);
+		sectorPanel.add(simplifyCounter);
+		
+		// Listener invokes the setter for the simplification tolerance on the Control Panel when value is updated
+		simplifyCounter.addChangeListener(new ChangeListener() {
+	          public void stateChanged(ChangeEvent e) {
+	              ControlPanel.this.doilyDisplayPanel.setSimplifyTolerance((Double)simplifyCounter.getValue());
+	          }
+		});
+		
 		// Label added to the side of the JSpinner to identify it as there is no native tag
 		sectorPanel.add(new JLabel(" NUMBER OF SECTORS "));
 		// Spinner model defined with specific implementation
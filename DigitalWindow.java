@@ -16,10 +16,10 @@ public class DigitalWindow extends JFrame {
 	
 	// Initialise method begins all the panels and the original master panel
 	public void init() {
-		// Settings for window close and resize setting set false
+		// Settings for window close and resize
 		this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		// Set false for the implementation, buffered image used on top of the JPanel can not be resized
-		this.setResizable(false);
+		// Display fits the doily to whatever size it is given so the window may be resized
+		this.setResizable(true);
 		
 		// Doily master size is set
 		int doilyWidth = 650;
@@ -37,9 +37,14 @@ public class DigitalWindow extends JFrame {
 		 */
 		Display doilyDisplayPanel = new Display(doilyHeight, doilyWidth);
 		masterPanel.add(doilyDisplayPanel, BorderLayout.CENTER);
+		// Render timings are published over JMX so they can be watched in a running session
+		doilyDisplayPanel.getRenderMetrics().register("DigitalDoily");
+		applyRenderSettings(doilyDisplayPanel);
 			
-		Gallery doilyGalleryPanel = new Gallery(doilyHeight, doilyWidth);
+		Gallery doilyGalleryPanel = new Gallery();
 		masterPanel.add(doilyGalleryPanel, BorderLayout.SOUTH);
+		// Gallery is given the display so doilies kept from an earlier session can be shown
+		doilyGalleryPanel.setDisplay(doilyDisplayPanel);
 		
 		ControlPanel doilyControlPanel = new ControlPanel(doilyDisplayPanel, doilyGalleryPanel);
 		masterPanel.add(doilyControlPanel, BorderLayout.NORTH);
@@ -49,4 +54,37 @@ public class DigitalWindow extends JFrame {
 		// GUI is set visible to become intractable
 		this.setVisible(true);
 	}
+	
+	/**
+	 * Method passes any render settings given as system properties on to the display, a setting not given
+	 * 		keeps its default
+	 * doily.strategy is transform, stamp or auto, doily.parallel and doily.liveSegments are true or false,
+	 * 		doily.keyframeInterval is a number of strokes and doily.keyframeBudget is a number of bytes
+	 */
+	private void applyRenderSettings(Display doilyDisplayPanel) {
+		String strategy = System.getProperty("doily.strategy");
+		if (strategy != null) {
+			try {
+				doilyDisplayPanel.setRenderStrategy(DoilyRenderer.Strategy.valueOf(strategy.trim().toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				System.err.println("Unknown doily.strategy " + strategy + ", expected transform, stamp or auto");
+			}
+		}
+		String parallel = System.getProperty("doily.parallel");
+		if (parallel != null) {
+			doilyDisplayPanel.setParallel(Boolean.parseBoolean(parallel.trim()));
+		}
+		String liveSegments = System.getProperty("doily.liveSegments");
+		if (liveSegments != null) {
+			doilyDisplayPanel.setLiveSegments(Boolean.parseBoolean(liveSegments.trim()));
+		}
+		Integer keyframeInterval = Integer.getInteger("doily.keyframeInterval");
+		if (keyframeInterval != null) {
+			doilyDisplayPanel.setKeyframeInterval(keyframeInterval);
+		}
+		Long keyframeBudget = Long.getLong("doily.keyframeBudget");
+		if (keyframeBudget != null) {
+			doilyDisplayPanel.setKeyframeBudget(keyframeBudget);
+		}
+	}
 }
@@ -1,22 +1,31 @@
 import java.awt.AlphaComposite;
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Transparency;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.BitSet;
 
-import javax.swing.ImageIcon;
-import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
-import java.util.Stack;
 
 /**
  * @author James Marsh
@@ -26,8 +35,25 @@ import java.util.Stack;
  * An independent set of listeners is also defined so that the main panel can react to user input when
  * 		drawing objects
  *
+ * Drawing is done on a render thread of its own. The listeners and setters change the history and settings
+ * 		on the interface thread and post what is to be drawn as commands, which hold the strokes, pen and
+ * 		sectors they need. Only the render thread draws on the buffered image, what it has drawn is copied onto
+ * 		the image painted by the panel once per frame
+ *
+ * Strokes are stored in the coordinates of a canvas the size the display was made at, and the canvas is fitted
+ * 		to the panel when it is drawn so the panel may be resized. While the panel is being resized the last
+ * 		frame is stretched to fit, once it has stopped changing size the strokes are drawn again at the new size
+ *
  */
 public class Display extends JPanel {
+	// Constants for the snapshot cache, a snapshot every 25 strokes inside 64MB (around 40 snapshots at 650x650)
+	private static final int KEYFRAME_INTERVAL = 25;
+	private static final long KEYFRAME_BUDGET = 64L * 1024 * 1024;
+	// Strokes of an archive replayed between checks for a newer replay, around a millisecond of drawing
+	private static final int REPLAY_CHUNK = 16;
+	// Time in milliseconds the panel must keep the same size before the strokes are drawn again at that size
+	private static final int RESIZE_DELAY = 200;
+	
 	
 	/**
 	 * Method defines the specific set of possible events for which the interface
@@ -49,10 +75,21 @@ public class Display extends JPanel {
 			if ((currentX > mouseSensitivity  + mouseBeginX || currentX < mouseBeginX - mouseSensitivity ) ||
 					(currentY > mouseBeginY + mouseSensitivity  || currentY < mouseBeginY - mouseSensitivity )) {
 
-				// Line next position is drawn on next
-				nextPath.lineTo(currentX, currentY);
-				// Draw method to display the information is updated
-				draw(nextPath);
+				// Line next position is drawn on next, in the coordinates of the canvas
+				nextData.addPoint(toCanvasX(currentX), toCanvasY(currentY));
+				
+				/*
+				 * In live mode only the newly appended segment is drawn, the round caps on each end
+				 * 		overlap the previous segment so the joins still appear round. Otherwise the whole
+				 * 		path is redrawn which grows in cost the longer the stroke is held
+				 */
+				if (isLiveSegments) {
+					postDraw(new float[] { toCanvasX(mouseBeginX), toCanvasY(mouseBeginY), toCanvasX(currentX),
+							toCanvasY(currentY) }, 2);
+				} else {
+					// Draw method to display the information is updated, the points are copied as the stroke grows
+					postDraw(Arrays.copyOf(nextData.getPoints(), nextData.getPointCount() * 2), nextData.getPointCount());
+				}
 				
 				// Mouse begin and finish is set for the next sensitivity check when the mouse moves again
 				mouseBeginX = e.getX();
@@ -62,46 +99,108 @@ public class Display extends JPanel {
 
 		// Method handles mouse pressed event
 		public void mousePressed(MouseEvent e) { 
+			// Strokes of a doily shown from the gallery are needed before more can be added
+			loadPendingArchive();
+			editCount++;
 			// Redo stack is removed so that the user can not redo anything to stop insertion anomalies
 			Display.this.clearRedo();
+			/*
+			 *  Before the next stroke begins the surface holds exactly the strokes on the instruction stack,
+			 *  	so if a snapshot is due it is taken now
+			 */
+			final int strokeCount = history.size();
+			renderLoop.post(new Runnable() {
+				public void run() {
+					if (keyframes.isDue(strokeCount)) {
+						keyframes.store(strokeCount, drawSpace);
+					}
+					// Surface is copied as the stroke begins so the area drawn while dragging can be put back
+					pressSpace = matchSurface(pressSpace);
+					drawSpace.copyData(pressSpace.getRaster());
+				}
+			});
+			strokeReplay = replayCount;
 			// Mouse initial position is set so it can be checked if it is dragged
 			mouseBeginX = e.getX();
 			mouseBeginY = e.getY();
 			
-			// New instance of the path is creates so that it can be updated on drag
-			nextPath = new Path2D.Double();
-			// Line position is set and starts to be drawn
-			nextPath.moveTo(mouseBeginX, mouseBeginY);
-			nextPath.lineTo(mouseBeginX, mouseBeginY);
+			// Stroke is timed from press to release
+			strokeEvent = new RenderEvents.strokeEvent();
+			strokeEvent.begin();
+			
+			// New instance of the stroke is creates so that it can be updated on drag
+			nextData = new LineData();
+			// Line position is set and starts to be drawn, the repeated point allows a single click to draw a dot
+			nextData.addPoint(toCanvasX(mouseBeginX), toCanvasY(mouseBeginY));
+			nextData.addPoint(toCanvasX(mouseBeginX), toCanvasY(mouseBeginY));
 		}
 
 		// Method handles mouse released event
 		public void mouseReleased(MouseEvent e) { 
-			// A new instance of a frame is generated so it can be set and pushed onto the instruction stack
-			LineData nextData = new LineData();
-			
 			// All information used to draw the current line is stored so it can be unpacked when required
-			nextData.setLine(nextPath);
 			nextData.setReflect(isRepeated);
 			nextData.setEraser(isEraser);
 			nextData.setPenSize(penSize);
 			nextData.setPenColor(penRed, penGreen, penBlue);
 			
-			// Data is pushed onto the instruction stack
-			penStack.push(nextData);
+			// Stroke as drawn while dragging is kept aside so the area it touched is known once it is simplified
+			final LineData sampledData = copyStroke(nextData);
+			/*
+			 *  Points the line passes within the tolerance of are dropped before the stroke is stored, so that
+			 *  	every later redraw strokes fewer segments
+			 */
+			int sampledCount = nextData.getPointCount();
+			nextData.simplify(simplifyTolerance / panelScale());
+			nextData.compact();
+			
+			// Data is pushed onto the instruction history
+			final LineData storedData = nextData;
+			history.push(storedData);
+			metrics.setStrokesInHistory(history.size());
+			
+			/*
+			 *  The stroke drawn while dragging came from every sample rather than the stored path, so the area
+			 *  	either touched is put back as it was when the stroke began and the stored stroke is drawn over it.
+			 *  	The surface then holds exactly what a redraw would and later partial redraws meet it without a seam.
+			 *  	If the surface was cleared or drawn again while dragging the area is redrawn from the history instead
+			 */
+			final StrokeVector strokes = history.snapshot();
+			final double drawnSectors = sectors;
+			final boolean isRestorable = strokeReplay == replayCount;
+			renderLoop.post(new Runnable() {
+				public void run() {
+					BitSet cells = (BitSet) strokeGrid.getCells(sampledData, drawnSectors, drawSpace.getWidth(),
+							drawSpace.getHeight()).clone();
+					cells.or(strokeGrid.getCells(storedData, drawnSectors, drawSpace.getWidth(), drawSpace.getHeight()));
+					if (isRestorable && pressSpace.getWidth() == drawSpace.getWidth()
+							&& pressSpace.getHeight() == drawSpace.getHeight()) {
+						copyCells(pressSpace, cells);
+						draw(storedData, drawnSectors);
+					} else {
+						redraw(strokes, cells, drawnSectors);
+					}
+				}
+			});
+			requestCompaction();
+			
+			strokeEvent.sampledPoints = sampledCount;
+			strokeEvent.points = nextData.getPointCount();
+			strokeEvent.sectors = sectors;
+			strokeEvent.commit();
 		}
 		
 		// On mouse click the line is updated if needs be
 		public void mouseClicked(MouseEvent e) {
-			// Simple position passed into the line as it does not need to be checked
-			nextPath.lineTo(e.getX(), e.getY());
-			// Points are drawn
-			draw(nextPath);
+			/*
+			 *  The stroke is already in the history and is left unchanged so that copies of the history stay fixed,
+			 *  	the press placed the dot at the point clicked so the stroke is drawn as it is
+			 */
+			postDraw(Arrays.copyOf(nextData.getPoints(), nextData.getPointCount() * 2), nextData.getPointCount());
 			/*
 			 * Final redraw allows for the instruction stack to be fully redrawn to make sure
 			 * 		the interface stays responsive and updates when needs be
 			 */
-			redraw();
+			postRedraw(0);
 		}
 		
 		public void mouseMoved(MouseEvent e) { }
@@ -114,12 +213,72 @@ public class Display extends JPanel {
 	
 	// All variables are initialised on startup and set as private for better encapsulation
 	private BufferedImage drawSpace;
+	// Image painted by the panel, drawing is copied onto it once per frame while it is locked
+	private BufferedImage shownSpace;
+	// Lock held while the shown image is painted, copied onto or replaced after a resize
+	private final Object shownLock = new Object();
+	// Size of the canvas strokes are stored in
+	private int canvasWidth = 0;
+	private int canvasHeight = 0;
+	/*
+	 *  Raised on the interface thread for each resize posted, the render thread records the last resize it has
+	 *  	drawn and shows no frames until it has drawn the last one posted
+	 */
+	private volatile int resizeCount = 0;
+	private int resizedCount = 0;
+	// Size of the surface last made or asked for, only used on the interface thread
+	private int surfaceWidth = 0;
+	private int surfaceHeight = 0;
+	// Restarted on each change of size so the strokes are only drawn again once resizing stops
+	private Timer resizeTimer = null;
 	
-	private Stack<LineData> penStack = new Stack<>(); 
-	private Stack<LineData> redoStack = new Stack<>(); 
-	private Path2D nextPath = null;
+	private StrokeHistory history = new StrokeHistory();
+	/*
+	 *  Snapshots, renderer, stroke grid, second surface and the area waiting to be shown are only used on the
+	 *  	render thread. The history, archive and settings are only used on the interface thread
+	 */
+	private KeyframeCache keyframes = new KeyframeCache(KEYFRAME_INTERVAL, KEYFRAME_BUDGET);
+	private DoilyRenderer renderer = new DoilyRenderer();
+	// Finds the strokes hidden by later strokes in the background so redraws can skip them
+	private HistoryCompactor compactor = new HistoryCompactor();
+	// Cells of the surface each stroke touches so undo only redraws the area of the stroke removed
+	private StrokeGrid strokeGrid = new StrokeGrid();
+	// Surface an area is redrawn on before it is copied onto the buffered image, and the surface as the stroke began
+	private BufferedImage areaSpace = null;
+	private BufferedImage pressSpace = null;
+	// Archive shown from the gallery whose strokes have not yet been copied into the history
+	private DoilyArchive pendingArchive = null;
+	private RenderMetrics metrics = new RenderMetrics();
+	// Area drawn on since the last frame, null when there is nothing to repaint
+	private Rectangle dirtyRegion = null;
+	// Sector lines are drawn once onto this image and only drawn again when the sectors or size change
+	private BufferedImage guideImg = null;
+	// Flight recorder event timing the stroke being drawn, and the time of the first draw not yet shown
+	private RenderEvents.strokeEvent strokeEvent = null;
+	private volatile long unshownDrawTime = 0;
+	/*
+	 *  Raised on the interface thread whenever the surface is cleared for a new drawing, a redraw posted before
+	 *  	then stops at its next chunk as whatever it would draw is cleared away
+	 */
+	private volatile int replayCount = 0;
+	/*
+	 *  Raised on the interface thread whenever the user begins a stroke, undoes, redoes or clears, so a doily
+	 *  	clicked in the gallery before then is not shown over the strokes
+	 */
+	private int editCount = 0;
+	// Frames are shown as soon as the render thread is idle, or once per screen refresh while it is busy
+	private RenderLoop renderLoop = new RenderLoop(new Runnable() {
+		public void run() {
+			showFrame();
+		}
+	}, frameInterval());
+	private LineData nextData = null;
+	// Replay count when the stroke being drawn began
+	private int strokeReplay = 0;
 	
 	private int mouseSensitivity = 1;
+	// Furthest in pixels of the panel a stored stroke may be from the points sampled while drawing it
+	private double simplifyTolerance = 0.5;
 	private int mouseBeginX = 0;
 	private int mouseBeginY = 0;
 	
@@ -134,6 +293,8 @@ public class Display extends JPanel {
 	private boolean isRepeated = true;
 	private boolean isEraser = false;
 	private boolean isSectorsOn = true;
+	private boolean isLiveSegments = true;
+	// Only used on the interface thread, commands carry the sectors they draw with
 	private double sectors = 30.0;	
 	
 	/**
@@ -144,46 +305,124 @@ public class Display extends JPanel {
 	public Display(int doilyHeight, int doilyWidth) {
 		// Simple size settings are defined so that the design is consistent 
 		this.setPreferredSize(new Dimension(doilyWidth, doilyHeight));
-		this.setMaximumSize(new Dimension(doilyWidth, doilyHeight));
 		this.setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
+		// Strokes are kept in the coordinates of a canvas the size the display starts at
+		this.canvasWidth = doilyWidth;
+		this.canvasHeight = doilyHeight;
+		strokeGrid.setCanvas(doilyWidth, doilyHeight);
 		
 		// Listeners are added to the main drawing panel
 		this.addMouseListener(new drawMouseListener());
 		this.addMouseMotionListener(new drawMouseListener());
 		
+		// Strokes are drawn again at the new size once the panel has kept the same size for a short time
+		resizeTimer = new Timer(RESIZE_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				resizeSurface();
+			}
+		});
+		resizeTimer.setRepeats(false);
+		this.addComponentListener(new ComponentAdapter() {
+			public void componentResized(ComponentEvent e) {
+				resizeTimer.restart();
+			}
+		});
+		
 		// Default background is set
 		this.setBackground(Color.GRAY);
+		
+		// Copies are made by whichever strategy is estimated to be cheaper for the stroke being drawn
+		renderer.setStrategy(DoilyRenderer.Strategy.AUTO);
+		compactor.setStrategy(DoilyRenderer.Strategy.AUTO);
 	}
 	
 	// Method clears information from the stacks for the display
 	public void clear() {
-		clearSurface();
-		repaint();
-		penStack.clear();
+		editCount++;
+		history.clear();
+		pendingArchive = null;
+		metrics.setStrokesInHistory(0);
+		replayCount++;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				clearSurface();
+				// Snapshots no longer represent the surface
+				keyframes.clear();
+			}
+		});
 	}
 	
 	// Method saves the current information for the display onto a smaller gallery panel
-	public void save(Gallery userGallery) {
-		userGallery.saveDoilyToFrame(this, drawSpace, penStack);
+	public void save(final Gallery userGallery) {
+		// Entry is taken now as another may be selected before the image is ready
+		final Gallery.galleryEntry savedEntry = userGallery.getSelectedEntry();
+		if (savedEntry == null) {
+			return;
+		}
+		loadPendingArchive();
+		final StrokeHistory savedHistory = history.copy();
+		final double savedSectors = this.sectors;
+		/*
+		 *  Image is copied on the render thread once the strokes saved have been drawn, then handed to the gallery
+		 *  	back on the interface thread
+		 */
+		renderLoop.post(new Runnable() {
+			public void run() {
+				final BufferedImage savedImg = Thumbnails.copy(drawSpace);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						userGallery.saveDoilyToFrame(Display.this, savedEntry, savedImg, savedHistory, savedSectors,
+								canvasWidth, canvasHeight);
+					}
+				});
+			}
+		});
 	}
 	
 	// Method draws the given instruction set onto the buffered image displayed from the gallery
-	public void displaySavedDoily(Stack<LineData> doilyPaintInstructions) {
-		// Stacks are copied for better consistency
-		Stack<LineData> currentInstructions = new Stack<LineData>();
-		currentInstructions.addAll(doilyPaintInstructions);
+	public void displaySavedDoily(StrokeHistory doilyPaintInstructions) {
+		// Instructions are copied in place of the current history so that the saved version stays independent
+		history.replaceWith(doilyPaintInstructions);
+		pendingArchive = null;
+		metrics.setStrokesInHistory(history.size());
 		
-		// Surface is cleared for new drawing and is repainted to draw lines
-		clearSurface();
-		repaint();
+		final StrokeVector strokes = history.snapshot();
+		final double drawnSectors = this.sectors;
+		final int replay = ++replayCount;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				// Surface is cleared for new drawing
+				clearSurface();
+				keyframes.clear();
+				// History is redrawn on buffered image
+				redraw(strokes, 0, drawnSectors, replay);
+			}
+		});
+		requestCompaction();
+	}
+	
+	/**
+	 * Method draws a saved archive onto the buffered image straight from the file, the strokes are only
+	 * 		copied into the history once they are needed to draw on, undo or save
+	 * The archive is replayed on the render thread a chunk at a time and shown as it goes, it stops early
+	 * 		if another doily is shown or the display is cleared before it finishes
+	 */
+	public void displaySavedDoily(final DoilyArchive doilyArchive) {
+		history.clear();
+		pendingArchive = doilyArchive;
+		metrics.setStrokesInHistory(doilyArchive.getStrokeCount());
 		
-		// Normals stacks are cleared so that the new information can be appended to a clear stack
-		redoStack.clear();
-		penStack.clear();
-		// Instructions are appended to stack
-		penStack.addAll(currentInstructions);
-		// Stack is redrawn on buffered image
-		redraw();
+		final double drawnSectors = this.sectors;
+		final int replay = ++replayCount;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				// Surface is cleared for new drawing
+				clearSurface();
+				keyframes.clear();
+				// Archive is replayed on buffered image
+				redraw(doilyArchive, drawnSectors, replay);
+			}
+		});
 	}
 	
 	// Given frame is passed through and removed if invoked
@@ -193,31 +432,40 @@ public class Display extends JPanel {
 	
 	// Method operates an undo function invoked from button press
 	public void undo() {
+		loadPendingArchive();
+		editCount++;
 		// Provided there is instruction to undo in the stack
-		if (!penStack.empty()) {
-			// Clear the buffered image to draw on
-			clearSurface();
-			// Update that change on the display
-			repaint();
-			// Remove the top most instruction and store in the redo stack if redo is invoked
-			redoStack.push(penStack.pop());
-			// Redraw the entire stack which excludes the most recent change
-			redraw();
+		if (!history.isEmpty()) {
+			// Move the cursor below the top most instruction so it is kept if redo is invoked
+			final LineData undone = history.undo();
+			metrics.setStrokesInHistory(history.size());
+			
+			final StrokeVector strokes = history.snapshot();
+			final double drawnSectors = this.sectors;
+			renderLoop.post(new Runnable() {
+				public void run() {
+					// Only the cells the removed stroke touched are redrawn
+					redraw(strokes, strokeGrid.getCells(undone, drawnSectors, drawSpace.getWidth(), drawSpace.getHeight()),
+							drawnSectors);
+				}
+			});
 		}
 	}
 	
 	// Method operates an redo function invoked from button press
 	public void redo() {
+		loadPendingArchive();
+		editCount++;
 		// Provided there is instruction to redo in the stack
-		if (!redoStack.empty()) {
-			// Clear the buffered image to draw on
-			clearSurface();
-			// Update that change on the display
-			repaint();
-			// Remove the top most instruction and store in the undo stack if undo is invoked
-			penStack.push(redoStack.pop());
-			// Redraw the entire stack which excludes the most recent change
-			redraw();
+		if (history.canRedo()) {
+			// Move the cursor back above the undone instruction so undo may be invoked again
+			history.redo();
+			metrics.setStrokesInHistory(history.size());
+			/*
+			 *  The buffered image already holds every instruction below the restored one so only
+			 *  	the restored instruction is drawn on top
+			 */
+			postRedraw(history.size() - 1);
 		}
 	}
 	
@@ -229,6 +477,8 @@ public class Display extends JPanel {
 	// Method allows the sector lines to be drawn or removed by boolean argument
 	public void setSectorsOn(boolean isOn) {
 		this.isSectorsOn = isOn;
+		// Sector lines are drawn again when next shown
+		guideImg = null;
 		// After value is updated whole image is redrawn
 		repaint();
 		/*
@@ -236,7 +486,7 @@ public class Display extends JPanel {
 		 *  	the buffered image to remove the change of new insertion or update anomalies on user
 		 *  	mouse button press
 		 */
-		redraw();
+		postRedraw(0);
 	}
 	
 	// Method allows the repeated drawings to be set by boolean argument
@@ -244,6 +494,68 @@ public class Display extends JPanel {
 		this.isRepeated = isRepeated;
 	}
 	
+	// Method allows the live stroke to be drawn segment by segment rather than as a whole path
+	public void setLiveSegments(boolean isLiveSegments) {
+		this.isLiveSegments = isLiveSegments;
+	}
+	
+	// Method returns the counters for the work done by the display
+	public RenderMetrics getRenderMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Method allows the way copies are made to be selected, either stroking each copy, stamping a tile
+	 * 		drawn once, or automatically using whichever is estimated to be cheaper for each stroke
+	 * The strategies place some edge pixels differently so the surface is drawn again with the new one
+	 */
+	public void setRenderStrategy(final DoilyRenderer.Strategy strategy) {
+		compactor.setStrategy(strategy);
+		renderLoop.post(new Runnable() {
+			public void run() {
+				renderer.setStrategy(strategy);
+			}
+		});
+		redrawAll();
+	}
+	
+	// Method allows the sectors to be drawn in parallel, or one after another when set false
+	public void setParallel(final boolean isParallel) {
+		renderLoop.post(new Runnable() {
+			public void run() {
+				renderer.setParallel(isParallel);
+			}
+		});
+	}
+	
+	// Method allows for the number of strokes between undo snapshots to be updated by integer argument
+	public void setKeyframeInterval(final int interval) {
+		renderLoop.post(new Runnable() {
+			public void run() {
+				keyframes.setInterval(interval);
+			}
+		});
+	}
+	
+	// Method allows for the memory available to undo snapshots to be updated, in bytes
+	public void setKeyframeBudget(final long memoryBudget) {
+		renderLoop.post(new Runnable() {
+			public void run() {
+				keyframes.setMemoryBudget(memoryBudget);
+			}
+		});
+	}
+	
+	// Method returns the number of changes made to the strokes by the user, read on the interface thread
+	public int getEditCount() {
+		return editCount;
+	}
+	
+	// Method waits until everything asked of the display so far has been drawn and shown
+	public void awaitRendering() {
+		renderLoop.await();
+	}
+	
 	// Method allows for the pen red value to be updated by integer argument
 	public void setPenRed(int red) {
 		this.penRed = red;
@@ -264,6 +576,11 @@ public class Display extends JPanel {
 		this.mouseSensitivity = mouseSensitivity;
 	}
 	
+	// Method allows for the stroke simplification tolerance to be updated, 0 keeps every point sampled
+	public void setSimplifyTolerance(double simplifyTolerance) {
+		this.simplifyTolerance = simplifyTolerance;
+	}
+	
 	// Method allows for the pen size value to be updated by integer argument
 	public void setPenSize(int penSize) {
 		this.penSize = penSize;
@@ -272,12 +589,35 @@ public class Display extends JPanel {
 	// Method allows the number of sectors to be updated and redrawn real time
 	public void setSectorVal(Integer sectorCount) {
 		this.sectors = sectorCount.doubleValue();
-		// Entire buffered image is cleared
-		clearSurface();
+		// Sector lines no longer match so are drawn again on the next paint
+		guideImg = null;
 		// Updated number of sectors is now redrawn by the default paintComponent
 		repaint();
-		// Repeated number of drawing instances are redrawn to the correct number of sectors
-		redraw();
+		redrawAll();
+	}
+	
+	// Method clears the surface and draws every stroke again, used when the way strokes are drawn has changed
+	private void redrawAll() {
+		final StrokeVector strokes = history.snapshot();
+		final DoilyArchive drawnArchive = pendingArchive;
+		final double drawnSectors = this.sectors;
+		final int replay = ++replayCount;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				// Snapshots were drawn the previous way so they are removed
+				keyframes.clear();
+				// Entire buffered image is cleared
+				clearSurface();
+				// Repeated number of drawing instances are redrawn the new way
+				if (drawnArchive != null) {
+					redraw(drawnArchive, drawnSectors, replay);
+				} else {
+					redraw(strokes, 0, drawnSectors, replay);
+				}
+			}
+		});
+		// Strokes hidden when drawn the previous way may not be hidden now
+		requestCompaction();
 	}
 		
 	/**
@@ -289,188 +629,497 @@ public class Display extends JPanel {
 		// Extension of JPanel requires a super instantiation of the jpanel
 		super.paintComponent(g);
 		
+		// Draws waiting to be shown are on screen once this paint completes
+		if (unshownDrawTime != 0) {
+			metrics.addFrame(System.nanoTime() - unshownDrawTime);
+			unshownDrawTime = 0;
+		}
+		
 		// If there exists no buffered image for this display one is created on the same dimensions
 		if (drawSpace == null) {
-			// Buffered image is assigned and created if one does not exist
-			drawSpace = new BufferedImage(this.getWidth(), this.getHeight(), BufferedImage.TYPE_INT_ARGB);
-			
-			// Buffered image is stored inside the label which sits on top of the display panel
-			JLabel drawnLabel = new JLabel(new ImageIcon(drawSpace));
-			// Alignment is set to sit in the centre of the display panel
-			drawnLabel.setHorizontalAlignment(JLabel.CENTER);
-			drawnLabel.setVerticalAlignment(JLabel.CENTER);
-			
-			this.add(drawnLabel);
+			// Buffered image is assigned and created if one does not exist, with the image shown beside it
+			drawSpace = createSurface(this.getWidth(), this.getHeight());
+			shownSpace = createSurface(this.getWidth(), this.getHeight());
+			renderer.fitView(canvasWidth, canvasHeight, drawSpace.getWidth(), drawSpace.getHeight());
+			surfaceWidth = drawSpace.getWidth();
+			surfaceHeight = drawSpace.getHeight();
+			// Commands posted before the first paint are drawn now there is a surface to draw on
+			renderLoop.start();
 		}
 		
 		// Centre values are stored so they may be reused and remain consistent
 		centerX = (this.getWidth() / 2);
 		centerY = (this.getHeight() / 2);
-		// Pen drawing the sector lines are the same set to a color lighter than the background
-		g.setColor(Color.LIGHT_GRAY);
 		
 		// If the centre lines are on in the boolean value stored as a class member variable
 		if (this.isSectorsOn) {
-			// Circular information is received
-			double radius = (this.getHeight() / 2);
-			double theta = 360.d / this.sectors;
+			// Lines are only drawn again if the panel has changed size since they were drawn
+			if (guideImg == null || guideImg.getWidth() != this.getWidth() || guideImg.getHeight() != this.getHeight()) {
+				guideImg = createGuide();
+			}
+			// Cached lines are copied onto the panel in one step
+			g.drawImage(guideImg, 0, 0, null);
+			metrics.addGuidePainted();
+		}
 		
-			/*
-			 * Using trigonometry and position of the next line end from the centre are calculated by using
-			 * 		sin and cosine waves which oscillate out of phase of each other, they can thus be used to calculate
-			 * 		the edge coordinates of a circle by looking at the arc length
-			 * 
-			 * Loop starts at -90 as they are drawn from the eastward facing line thus when they are reflected they appear
-			 * 		to remain symmetrical by shifting a constant line from east to north
-			 */
-			for (double i = -90.0; i < 360.d; i += theta) {
-				double nextX = radius * Math.cos(Math.toRadians(i)) + centerX;
-				double nextY =  radius * Math.sin(Math.toRadians(i)) + centerY;
-				// End line is drawn from the centre to the calculated coordinate
-				g.drawLine(centerX, centerY, (int)nextX, (int)nextY);
+		// Shown image is painted over the lines, locked so a frame being copied onto it is never half painted
+		synchronized (shownLock) {
+			if (shownSpace.getWidth() == this.getWidth() && shownSpace.getHeight() == this.getHeight()) {
+				g.drawImage(shownSpace, 0, 0, null);
+			} else {
+				paintPreview(g);
+			}
+		}
+	}
+	
+	/**
+	 * Method stretches the shown image over the panel while the strokes have not yet been drawn at its size,
+	 * 		the canvas on the shown image is moved and scaled onto the canvas as it is fitted to the panel
+	 */
+	private void paintPreview(Graphics g) {
+		double shownScale = DoilyRenderer.fitScale(canvasWidth, canvasHeight, shownSpace.getWidth(), shownSpace.getHeight());
+		double ratio = panelScale() / shownScale;
+		double shownX = (shownSpace.getWidth() - canvasWidth * shownScale) / 2;
+		double shownY = (shownSpace.getHeight() - canvasHeight * shownScale) / 2;
+		double panelX = (this.getWidth() - canvasWidth * panelScale()) / 2;
+		double panelY = (this.getHeight() - canvasHeight * panelScale()) / 2;
+		
+		Graphics2D previewObj = (Graphics2D) g.create();
+		previewObj.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		previewObj.drawImage(shownSpace, (int) Math.round(panelX - shownX * ratio), (int) Math.round(panelY - shownY * ratio),
+				(int) Math.round(shownSpace.getWidth() * ratio), (int) Math.round(shownSpace.getHeight() * ratio), null);
+		previewObj.dispose();
+	}
+	
+	// Method returns the number of panel pixels per canvas pixel, the canvas is fitted to the panel
+	private double panelScale() {
+		return DoilyRenderer.fitScale(canvasWidth, canvasHeight, Math.max(1, this.getWidth()), Math.max(1, this.getHeight()));
+	}
+	
+	// Method returns the canvas position of a position across the panel
+	private float toCanvasX(int panelX) {
+		return (float) ((panelX - (this.getWidth() - canvasWidth * panelScale()) / 2) / panelScale());
+	}
+	
+	// Method returns the canvas position of a position down the panel
+	private float toCanvasY(int panelY) {
+		return (float) ((panelY - (this.getHeight() - canvasHeight * panelScale()) / 2) / panelScale());
+	}
+	
+	/**
+	 * Method draws every stroke again onto a surface the size the panel is now, on the render thread
+	 * The last frame is stretched over the panel until the strokes have been drawn, a resize or other redraw
+	 * 		posted before it finishes stops it
+	 */
+	private void resizeSurface() {
+		// Panel resized back to the size of the surface before the timer ran needs nothing drawn
+		if (drawSpace == null || this.getWidth() <= 0 || this.getHeight() <= 0
+				|| (this.getWidth() == surfaceWidth && this.getHeight() == surfaceHeight)) {
+			return;
+		}
+		final int width = this.getWidth();
+		final int height = this.getHeight();
+		surfaceWidth = width;
+		surfaceHeight = height;
+		final StrokeVector strokes = history.snapshot();
+		final DoilyArchive drawnArchive = pendingArchive;
+		final double drawnSectors = this.sectors;
+		final int resize = ++resizeCount;
+		final int replay = ++replayCount;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				// Frames start again even if the surface could not be made, the previous surface is then kept
+				try {
+					drawSpace = createSurface(width, height);
+					renderer.fitView(canvasWidth, canvasHeight, width, height);
+					// Snapshots are the size of the previous surface
+					keyframes.clear();
+					clearSurface();
+					if (drawnArchive != null) {
+						redraw(drawnArchive, drawnSectors, replay);
+					} else {
+						redraw(strokes, 0, drawnSectors, replay);
+					}
+				} finally {
+					resizedCount = resize;
+				}
 			}
+		});
+		// Strokes hidden at the previous size may not be hidden at this one
+		requestCompaction();
+	}
+	
+	/**
+	 * Method makes a transparent surface in the format the screen draws fastest, which is premultiplied on
+	 * 		most screens so drawing strokes, erasing and painting the surface need no divide by alpha
+	 * Without a screen the surface is premultiplied as most screens would choose
+	 */
+	private BufferedImage createSurface(int width, int height) {
+		GraphicsConfiguration screenConfig = this.getGraphicsConfiguration();
+		if (screenConfig != null && !GraphicsEnvironment.isHeadless()) {
+			return screenConfig.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
 		}
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
 	}
 	
-	// Method redraws the entire instruction stack (penStack variable)
-	private void redraw() {
-		// So no inconsistencies arise the stack is copied
-		Stack<LineData> tempHistoryStack = new Stack<LineData>();
-		// So the stack is not drawn in inverse order the stack has to be reversed
-		tempHistoryStack.addAll(reverseStack(penStack));
+	/**
+	 * Method draws the sector lines onto a new transparent image the size of the panel, it is called
+	 * 		only when the number of sectors, the sector lines setting or the panel size changes
+	 */
+	private BufferedImage createGuide() {
+		BufferedImage newGuide = new BufferedImage(Math.max(1, this.getWidth()), Math.max(1, this.getHeight()),
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D guideObj = newGuide.createGraphics();
+		// Pen drawing the sector lines are the same set to a color lighter than the background
+		guideObj.setColor(Color.LIGHT_GRAY);
 		
-		// All initial instance information must be stored so it can be returned
-		boolean tempRepeat = this.isRepeated;
-		boolean tempEraser = this.isEraser;
-		int tempPenSize = this.penSize;
-		int tempPenRed = this.penRed;
-		int tempPenBlue = this.penBlue;
-		int tempPenGreen = this.penGreen;
+		// Circular information is received
+		double radius = (canvasHeight / 2) * panelScale();
+		double theta = 360.d / this.sectors;
+	
+		/*
+		 * Using trigonometry and position of the next line end from the centre are calculated by using
+		 * 		sin and cosine waves which oscillate out of phase of each other, they can thus be used to calculate
+		 * 		the edge coordinates of a circle by looking at the arc length
+		 * 
+		 * Loop starts at -90 as they are drawn from the eastward facing line thus when they are reflected they appear
+		 * 		to remain symmetrical by shifting a constant line from east to north
+		 */
+		for (double i = -90.0; i < 360.d; i += theta) {
+			double nextX = radius * Math.cos(Math.toRadians(i)) + centerX;
+			double nextY =  radius * Math.sin(Math.toRadians(i)) + centerY;
+			// End line is drawn from the centre to the calculated coordinate
+			guideObj.drawLine(centerX, centerY, (int)nextX, (int)nextY);
+		}
+		guideObj.dispose();
 		
-		// A while loop will iterate through the copied instruction stack
-		while (!tempHistoryStack.empty()) {
-			// One at a time the information is popped from the stack
-			LineData nextStackData = tempHistoryStack.pop();
-			// All the information for the time of the drawing is set and the line is drawn
-			Path2D nextStackLine = nextStackData.getLine();
-			
-			this.isRepeated = nextStackData.getReflect();
-			this.isEraser = nextStackData.getEraser();
-			this.penSize = nextStackData.getPenSize();
-			this.penRed = nextStackData.getPenRed();
-			this.penGreen = nextStackData.getPenGreen();
-			this.penBlue = nextStackData.getPenBlue();
-			
-			// The line is drawn by the invoking of the draw method
-			draw(nextStackLine);
+		metrics.addGuideBuilt();
+		return newGuide;
+	}
+	
+	// Method posts a redraw of the instruction history from the given index up to the undo cursor
+	private void postRedraw(final int startIndex) {
+		final StrokeVector strokes = history.snapshot();
+		final DoilyArchive drawnArchive = pendingArchive;
+		final double drawnSectors = this.sectors;
+		final int replay = replayCount;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				if (drawnArchive != null) {
+					redraw(drawnArchive, drawnSectors, replay);
+				} else {
+					redraw(strokes, startIndex, drawnSectors, replay);
+				}
+			}
+		});
+	}
+	
+	// Method posts a draw of the given points with the pen as it is now set
+	private void postDraw(final float[] points, final int pointCount) {
+		/*
+		 * The pen information set by the JSliders by the user is passed to the renderer which draws
+		 * 		each sector, the eraser does not use a color as it only removes pixels
+		 */
+		final Color penColor = isEraser ? null : new Color(this.penRed, this.penGreen, this.penBlue);
+		final boolean drawnRepeated = this.isRepeated;
+		final boolean drawnEraser = this.isEraser;
+		final int drawnPenSize = this.penSize;
+		final double drawnSectors = this.sectors;
+		renderLoop.post(new Runnable() {
+			public void run() {
+				draw(points, pointCount, drawnSectors, drawnRepeated, drawnEraser, drawnPenSize, penColor);
+			}
+		});
+	}
+	
+	/**
+	 * Method replays a doily shown from the gallery from its archive, on the render thread
+	 * @param replay the replay count when the redraw was posted, the replay stops once it has been raised
+	 */
+	private void redraw(DoilyArchive drawnArchive, double drawnSectors, int replay) {
+		RenderEvents.redrawEvent redrawEvent = new RenderEvents.redrawEvent();
+		redrawEvent.begin();
+		long startTime = System.nanoTime();
+		
+		// Archive is replayed a chunk of strokes at a time so each chunk can be shown before the next is read
+		int drawnCount = 0;
+		while (drawnCount < drawnArchive.getStrokeCount() && replay == replayCount) {
+			int chunkEnd = Math.min(drawnCount + REPLAY_CHUNK, drawnArchive.getStrokeCount());
+			markDirty(drawnArchive.replay(renderer, drawSpace, drawnSectors, drawnCount, chunkEnd));
+			countRequests(chunkEnd - drawnCount, drawnSectors);
+			drawnCount = chunkEnd;
+			renderLoop.frameIfDue();
 		}
-		// Once all redrawing is complete, the original settings are set back
-		this.isRepeated = tempRepeat;
-		this.isEraser = tempEraser;
-		this.penRed = tempPenRed;
-		this.penGreen = tempPenGreen;
-		this.penBlue = tempPenBlue;
-		this.penSize = tempPenSize;
 		
-		// The temporary stack is the cleared to remove unnecessary memory usage
-		tempHistoryStack.clear();
+		metrics.addRedraw(System.nanoTime() - startTime);
+		redrawEvent.strokes = drawnCount;
+		redrawEvent.isFromArchive = true;
+		redrawEvent.isCancelled = drawnCount < drawnArchive.getStrokeCount();
+		redrawEvent.commit();
 	}
 	
 	/**
-	 * This method takes a given line and draws it to the specified number of times
-	 * @param currentPath is a Path2D object the the path information inside it
+	 * Method redraws the given strokes from the given index, on the render thread
+	 * @param replay the replay count when the redraw was posted, the redraw stops once it has been raised
 	 */
-	private void draw(Path2D currentPath) {
-		// An object to repeat is generated as a Graphics2D from the stored BufferedImage
-		Graphics2D repeatObj = (Graphics2D) drawSpace.getGraphics();
-		// The angle between repeats is calculated as a float for better redrawing
-		double theta = 360.d / this.sectors;
+	private void redraw(StrokeVector strokes, int startIndex, double drawnSectors, int replay) {
+		RenderEvents.redrawEvent redrawEvent = new RenderEvents.redrawEvent();
+		redrawEvent.begin();
+		long startTime = System.nanoTime();
 		
 		/*
-		 * If the current pen is an eraser alpha composite mask is set over the top to modify
-		 * 		the pixels in the buffered image to draw out
-		 * Otherwise it is set to the normal mask and the pen information set by he JSliders by the user
-		 * 		are used
+		 *  History is read in place in the order the strokes were drawn, strokes completely painted over
+		 *  	or erased by later strokes still drawn are skipped as the surface is the same without them.
+		 *  	A long replay is shown as it goes rather than only once it has finished
 		 */
-		if (isEraser) {
-			repeatObj.setComposite(AlphaComposite.getInstance(AlphaComposite.DST_OUT));
-		} else {
-			repeatObj.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER));
-			repeatObj.setColor(new Color(this.penRed, this.penGreen, this.penBlue));
+		BitSet hidden = compactor.getHidden(strokes, drawnSectors, drawSpace.getWidth(), drawSpace.getHeight());
+		int i = hidden.nextClearBit(startIndex);
+		for (; i < strokes.size() && replay == replayCount; i = hidden.nextClearBit(i + 1)) {
+			draw(strokes.get(i), drawnSectors);
+			renderLoop.frameIfDue();
 		}
-			
-		// The loop operates on the number of sectors the line needs to be drawn in
-		for (double i = 0.0; i < this.sectors; i += 1) {
-			// The path2D stroke size is set by the user stroke size JSlider in the control panel
-			repeatObj.setStroke(new BasicStroke(this.penSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-			
-			/*
-			 * AffineTransform is a linear transformation mask that is applied
-			 * 		to the path in order to recalculate  its position given a new amount of rotation
-			 * i * theta is equivalent to the new angle of rotation
-			 */
-			AffineTransform linearTransform = AffineTransform.getRotateInstance(
-	                Math.toRadians(theta * i),
-	                this.getWidth()/2,
-	                this.getHeight()/2
-	        );
-			
-			// The rotated object is then drawn onto the Graphics2D object
-			repeatObj.draw(linearTransform.createTransformedShape(currentPath));
-			
-			// If the boolean argument is satisfied another transformation takes place
-            if (isRepeated) {
-            	/*
-            	 *  AffineTransform applies another linear transformation to mirror the image cross a sector line
-            	 *  	which allows for the reflection criterion to be met
-            	 */
-            	linearTransform.translate(this.getWidth(), 0);
-                linearTransform.scale(-1, 1);
-
-                // Reflected object is then drawn using this transformation
-                repeatObj.draw(linearTransform.createTransformedShape(currentPath));
-            }
-            // Buffered image is then updated on top of the display
-    		repaint();
+		
+		metrics.addRedraw(System.nanoTime() - startTime);
+		redrawEvent.firstStroke = startIndex;
+		redrawEvent.strokes = strokes.size() - startIndex;
+		redrawEvent.isCancelled = i < strokes.size();
+		redrawEvent.skippedStrokes = hidden.get(startIndex, Math.max(startIndex, strokes.size())).cardinality();
+		redrawEvent.commit();
+	}
+	
+	/**
+	 * Method redraws the given cells of the surface from only the strokes touching them, on the render thread
+	 * The strokes are drawn in full onto a second surface starting from the nearest snapshot, then the cells
+	 * 		alone are copied onto the buffered image. Drawing straight onto the buffered image with a clip would
+	 * 		be cheaper but the rasteriser places some pixels differently once a clip is set
+	 * @param strokes the strokes drawn after the undo
+	 * @param cells the cells of the stroke grid to redraw
+	 */
+	private void redraw(StrokeVector strokes, BitSet cells, double drawnSectors) {
+		RenderEvents.redrawEvent redrawEvent = new RenderEvents.redrawEvent();
+		redrawEvent.begin();
+		long startTime = System.nanoTime();
+		
+		areaSpace = matchSurface(areaSpace);
+		// The nearest snapshot is copied onto the second surface if one exists, otherwise it is cleared
+		int startIndex = keyframes.restore(strokes.size(), areaSpace);
+		if (startIndex == 0) {
+			clearSurface(areaSpace);
+		}
+		
+		BitSet hidden = compactor.getHidden(strokes, drawnSectors, drawSpace.getWidth(), drawSpace.getHeight());
+		int drawnCount = 0;
+		for (int i = hidden.nextClearBit(startIndex); i < strokes.size(); i = hidden.nextClearBit(i + 1)) {
+			LineData stroke = strokes.get(i);
+			if (strokeGrid.getCells(stroke, drawnSectors, drawSpace.getWidth(), drawSpace.getHeight()).intersects(cells)) {
+				renderer.render(areaSpace, stroke, drawnSectors);
+				drawnCount++;
+			}
 		}
+		
+		copyCells(areaSpace, cells);
+		countRequests(drawnCount, drawnSectors);
+		
+		metrics.addRedraw(System.nanoTime() - startTime);
+		redrawEvent.firstStroke = startIndex;
+		redrawEvent.strokes = strokes.size() - startIndex;
+		redrawEvent.skippedStrokes = redrawEvent.strokes - drawnCount;
+		redrawEvent.commit();
+	}
+	
+	// Method copies the given cells of a surface over the buffered image exactly, replacing whatever was drawn there
+	private void copyCells(BufferedImage source, BitSet cells) {
+		Shape area = strokeGrid.getArea(cells);
+		Graphics2D graphicsObj = drawSpace.createGraphics();
+		graphicsObj.setComposite(AlphaComposite.Src);
+		graphicsObj.clip(area);
+		graphicsObj.drawImage(source, 0, 0, null);
+		graphicsObj.dispose();
+		markDirty(area.getBounds());
 	}
 	
-	// Method removes all information on the display buffered image
+	// Method returns the given surface if it matches the buffered image, otherwise a new surface that does
+	private BufferedImage matchSurface(BufferedImage surface) {
+		if (surface == null || surface.getWidth() != drawSpace.getWidth() || surface.getHeight() != drawSpace.getHeight()) {
+			// Surface shares the format of the buffered image so snapshots and cells copy across exactly
+			surface = new BufferedImage(drawSpace.getColorModel(), drawSpace.getRaster().createCompatibleWritableRaster(),
+					drawSpace.isAlphaPremultiplied(), null);
+		}
+		return surface;
+	}
+	
+	// Method returns a copy of the points and pen of a stroke
+	private static LineData copyStroke(LineData stroke) {
+		LineData copiedData = new LineData();
+		float[] points = stroke.getPoints();
+		for (int i = 0; i < stroke.getPointCount(); i++) {
+			copiedData.addPoint(points[i * 2], points[i * 2 + 1]);
+		}
+		copiedData.setReflect(stroke.getReflect());
+		copiedData.setEraser(stroke.getEraser());
+		copiedData.setPenSize(stroke.getPenSize());
+		copiedData.setPenColor(stroke.getPenRed(), stroke.getPenGreen(), stroke.getPenBlue());
+		return copiedData;
+	}
+	
+	/**
+	 * This method draws a stored stroke using the pen information stored with it, the pen
+	 * 		information of the display is left as set by the user
+	 * @param stroke is a LineData object holding the stroke and the pen used to draw it
+	 */
+	private void draw(LineData stroke, double drawnSectors) {
+		RenderEvents.drawEvent drawEvent = new RenderEvents.drawEvent();
+		drawEvent.begin();
+		long startTime = System.nanoTime();
+		
+		Rectangle touched = renderer.render(drawSpace, stroke, drawnSectors);
+		
+		recordDraw(drawEvent, startTime, stroke.getPointCount(), drawnSectors, stroke.getReflect(), touched);
+		// Area drawn on is updated on top of the display at the next frame
+		markDirty(touched);
+	}
+	
+	/**
+	 * This method takes a given line and draws it to the specified number of times, on the render thread
+	 * @param points are the x, y pairs of either a whole stroke or a single live segment
+	 * @param pointCount is the number of points to draw
+	 */
+	private void draw(float[] points, int pointCount, double drawnSectors, boolean drawnRepeated, boolean drawnEraser,
+			int drawnPenSize, Color penColor) {
+		RenderEvents.drawEvent drawEvent = new RenderEvents.drawEvent();
+		drawEvent.begin();
+		long startTime = System.nanoTime();
+		
+		Rectangle touched = renderer.render(drawSpace, points, pointCount, drawnSectors, drawnRepeated, drawnEraser,
+				drawnPenSize, penColor);
+		
+		recordDraw(drawEvent, startTime, pointCount, drawnSectors, drawnRepeated, touched);
+		// Area drawn on is updated on top of the display at the next frame
+		markDirty(touched);
+	}
+	
+	// Method records the time and segments of a draw in the metrics and completes its flight recorder event
+	private void recordDraw(RenderEvents.drawEvent drawEvent, long startTime, int pointCount, double drawnSectors,
+			boolean isReflected, Rectangle touched) {
+		long copies = (long) Math.ceil(drawnSectors) * (isReflected ? 2 : 1);
+		metrics.addDraw(Math.max(1, pointCount - 1) * copies, System.nanoTime() - startTime);
+		countRequests(1, drawnSectors);
+		
+		drawEvent.points = pointCount;
+		drawEvent.sectors = drawnSectors;
+		drawEvent.strategy = renderer.getLastStrategy().name();
+		drawEvent.pixelsTouched = (long) touched.width * touched.height;
+		drawEvent.commit();
+	}
+	
+	// Method counts the repaints the strokes drawn would once have asked for, each sector drawn repainted the whole display
+	private void countRequests(long strokeCount, double drawnSectors) {
+		metrics.addRepaintsRequested(strokeCount * (long) Math.ceil(drawnSectors));
+	}
+	
+	/**
+	 * Method adds the given area to the area waiting to be shown, on the render thread, so that many
+	 * 		draws between frames become a single repaint of their combined area
+	 */
+	private void markDirty(Rectangle touched) {
+		if (touched.isEmpty()) {
+			return;
+		}
+		dirtyRegion = (dirtyRegion == null) ? new Rectangle(touched) : dirtyRegion.union(touched);
+		// Frame latency is measured from the earliest draw not yet painted
+		if (unshownDrawTime == 0) {
+			unshownDrawTime = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Method copies the area drawn on since the last frame onto the shown image and repaints it, it is run by
+	 * 		the render loop at frame boundaries. The shown image is locked while it is copied so a paint never
+	 * 		sees half a frame
+	 */
+	private void showFrame() {
+		// Panel keeps stretching the last frame until the strokes have been drawn at the size it was resized to
+		if (dirtyRegion == null || resizedCount != resizeCount) {
+			return;
+		}
+		Rectangle shown = dirtyRegion;
+		dirtyRegion = null;
+		synchronized (shownLock) {
+			// Shown image is replaced in full once a resized surface is shown for the first time
+			if (shownSpace.getWidth() != drawSpace.getWidth() || shownSpace.getHeight() != drawSpace.getHeight()) {
+				shownSpace = createSurface(drawSpace.getWidth(), drawSpace.getHeight());
+				shown = new Rectangle(0, 0, drawSpace.getWidth(), drawSpace.getHeight());
+			}
+			Graphics2D shownObj = shownSpace.createGraphics();
+			shownObj.setComposite(AlphaComposite.Src);
+			shownObj.drawImage(drawSpace, shown.x, shown.y, shown.x + shown.width, shown.y + shown.height,
+					shown.x, shown.y, shown.x + shown.width, shown.y + shown.height, null);
+			shownObj.dispose();
+		}
+		repaint(shown);
+		metrics.addRepaintPerformed();
+	}
+	
+	// Method returns the frame interval in milliseconds from the refresh rate of the screen, 60Hz if unknown
+	private static int frameInterval() {
+		int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+		if (!GraphicsEnvironment.isHeadless()) {
+			refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+					.getDisplayMode().getRefreshRate();
+		}
+		if (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN) {
+			refreshRate = 60;
+		}
+		return Math.max(1, 1000 / refreshRate);
+	}
+	
+	// Method removes all information on the display buffered image, on the render thread
 	private void clearSurface() {
+		clearSurface(drawSpace);
+		markDirty(new Rectangle(0, 0, drawSpace.getWidth(), drawSpace.getHeight()));
+	}
+	
+	// Method clears the given surface
+	private void clearSurface(BufferedImage surface) {
 		// Graphics object created from buffered image
-		Graphics2D graphicsObj = (Graphics2D) drawSpace.getGraphics();
+		Graphics2D graphicsObj = (Graphics2D) surface.getGraphics();
 		// Transparent gray background is set (color.darkgray values)
         graphicsObj.setBackground(new Color(192, 192, 192, 0));
         // Clear rectangle is drawn over the top to mask previous drawing
-        graphicsObj.clearRect(0, 0, drawSpace.getWidth(), drawSpace.getHeight());
+        graphicsObj.clearRect(0, 0, surface.getWidth(), surface.getHeight());
 	}
 	
-	// Method takes a given stack and reverses it returning that as the output
-	private Stack<LineData> reverseStack(Stack<LineData> originalStack) {
-		// Stack is copied to remove change of any anomalies occurring from reversal
-		Stack<LineData> bullStack = new Stack<LineData>();
-		bullStack.addAll(originalStack);
-		// Reversed stack instance is instantiated
-		Stack<LineData> reversedStack = new Stack<LineData>();
-		
-		/*
-		 * While the original stack is not empty each value is popped and pushed into the new stack
-		 * 		resulting in the top object being at the bottom of the new stack and vice versa
-		 */
-		while (!bullStack.empty()) {
-			reversedStack.push(bullStack.pop());
+	// Method copies the strokes of an archive shown from the gallery into the history
+	private void loadPendingArchive() {
+		if (pendingArchive != null) {
+			history.replaceWith(pendingArchive.toHistory());
+			pendingArchive = null;
+			metrics.setStrokesInHistory(history.size());
+			requestCompaction();
+		}
+	}
+	
+	// Method asks for the strokes hidden by later strokes to be found again now the history has changed
+	private void requestCompaction() {
+		// Surface is the size of the panel once any resize has been drawn
+		if (drawSpace != null && this.getWidth() > 0 && this.getHeight() > 0) {
+			compactor.request(history.snapshot(), this.sectors, canvasWidth, canvasHeight, this.getWidth(), this.getHeight());
 		}
-		
-		// Reverse stack is returned as the intended output
-		return reversedStack;
 	}
 	
 	// Method clears the redo stack
 	private void clearRedo() {
 		/*
-		 *  Simple invoke of the clear method on the stack
+		 *  Simple invoke of the clear method on the history
 		 *  	this is done to improve code readability
 		 */
-		redoStack.clear();
+		history.clearRedo();
+		// Snapshots of the instructions which could have been redone are no longer valid
+		final int strokeCount = history.size();
+		renderLoop.post(new Runnable() {
+			public void run() {
+				keyframes.invalidateAfter(strokeCount);
+			}
+		});
 	}
 }
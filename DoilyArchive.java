@@ -0,0 +1,231 @@
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class stores a stroke history in a compact binary file which is memory mapped to be read
+ * A saved doily is replayed straight from the mapped file, the points of each stroke are read into one
+ * 		reused buffer and drawn so no stroke objects are made to show it
+ *
+ * The file is laid out as a header, an index with one entry per stroke, then every point packed together
+ * 		header	magic, version, canvas width and height, sectors, stroke count, point count
+ * 		index	first point, point count, pen (size and color packed as in LineData), flags
+ * 		points	x, y floats for every stroke one after another
+ *
+ */
+class DoilyArchive {
+	private static final int MAGIC = 0x444F494C;
+	private static final short VERSION = 1;
+
+	// Sizes in bytes of each part of the file
+	private static final int HEADER_SIZE = 32;
+	private static final int INDEX_ENTRY_SIZE = 16;
+	private static final int POINT_SIZE = 8;
+
+	// Flag bits for the boolean pen settings, the same as stored in LineData
+	private static final int REFLECT_FLAG = 1;
+	private static final int ERASER_FLAG = 2;
+
+	private MappedByteBuffer mapped = null;
+	private int canvasWidth = 0;
+	private int canvasHeight = 0;
+	private double sectors = 0;
+	private int strokeCount = 0;
+	private int pointCount = 0;
+
+	private DoilyArchive(MappedByteBuffer mapped) throws IOException {
+		this.mapped = mapped;
+		if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+			throw new IOException("Not a doily archive");
+		}
+		if (mapped.getShort(4) != VERSION) {
+			throw new IOException("Unsupported doily archive version " + mapped.getShort(4));
+		}
+		canvasWidth = mapped.getInt(8);
+		canvasHeight = mapped.getInt(12);
+		sectors = mapped.getDouble(16);
+		strokeCount = mapped.getInt(24);
+		pointCount = mapped.getInt(28);
+		long expectedSize = HEADER_SIZE + (long) strokeCount * INDEX_ENTRY_SIZE + (long) pointCount * POINT_SIZE;
+		if (strokeCount < 0 || pointCount < 0 || mapped.capacity() != expectedSize) {
+			throw new IOException("Doily archive is truncated or corrupt");
+		}
+	}
+
+	/**
+	 * Method maps the given file so it can be replayed
+	 * @param file the archive to open
+	 * @return the opened archive, the mapping stays valid once the file is closed
+	 * @throws IOException if the file cannot be read or is not an archive
+	 */
+	public static DoilyArchive open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new DoilyArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Method writes the drawn strokes of the given history, replacing the file if it exists
+	 * The file is written alongside and moved into place, so an archive already open on the old file
+	 * 		keeps reading the old contents
+	 * @param file the file to write
+	 * @param history the strokes to write
+	 * @param canvasWidth width of the canvas the strokes were drawn on
+	 * @param canvasHeight height of the canvas the strokes were drawn on
+	 * @param sectors number of sectors the strokes were drawn with
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path file, StrokeHistory history, int canvasWidth, int canvasHeight, double sectors)
+			throws IOException {
+		int strokeCount = history.size();
+		int pointCount = 0;
+		for (int i = 0; i < strokeCount; i++) {
+			pointCount += history.get(i).getPointCount();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + strokeCount * INDEX_ENTRY_SIZE + pointCount * POINT_SIZE);
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+		buffer.putInt(canvasWidth).putInt(canvasHeight).putDouble(sectors);
+		buffer.putInt(strokeCount).putInt(pointCount);
+
+		int firstPoint = 0;
+		for (int i = 0; i < strokeCount; i++) {
+			LineData stroke = history.get(i);
+			int pen = (stroke.getPenSize() << 24) | (stroke.getPenRed() << 16)
+					| (stroke.getPenGreen() << 8) | stroke.getPenBlue();
+			int flags = (stroke.getReflect() ? REFLECT_FLAG : 0) | (stroke.getEraser() ? ERASER_FLAG : 0);
+			buffer.putInt(firstPoint).putInt(stroke.getPointCount()).putInt(pen).putInt(flags);
+			firstPoint += stroke.getPointCount();
+		}
+		for (int i = 0; i < strokeCount; i++) {
+			LineData stroke = history.get(i);
+			buffer.asFloatBuffer().put(stroke.getPoints(), 0, stroke.getPointCount() * 2);
+			buffer.position(buffer.position() + stroke.getPointCount() * POINT_SIZE);
+		}
+		buffer.flip();
+
+		Path written = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(written, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Method draws every stroke in the archive onto the target straight from the mapped file
+	 * @param renderer the renderer used to draw each stroke
+	 * @param target buffered image the strokes are drawn onto
+	 * @param sectors number of sectors each stroke is repeated over
+	 * @return the area of the target touched by the strokes
+	 */
+	public Rectangle replay(DoilyRenderer renderer, BufferedImage target, double sectors) {
+		return replay(renderer, target, sectors, 0, strokeCount);
+	}
+
+	/**
+	 * Method draws the given strokes in the archive onto the target straight from the mapped file
+	 * The archive may be replayed from several threads at once as each replay reads through its own view
+	 * @param first index of the first stroke to draw
+	 * @param last index after the last stroke to draw
+	 */
+	public Rectangle replay(DoilyRenderer renderer, BufferedImage target, double sectors, int first, int last) {
+		Rectangle touched = null;
+		FloatBuffer points = pointBuffer();
+		// Points of the stroke being replayed are copied here, grown to the longest stroke
+		float[] replayPoints = new float[0];
+		Color strokeColor = null;
+		for (int i = first; i < last; i++) {
+			int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+			int strokePoints = mapped.getInt(entry + 4);
+			int pen = mapped.getInt(entry + 8);
+			int flags = mapped.getInt(entry + 12);
+
+			if (replayPoints.length < strokePoints * 2) {
+				replayPoints = new float[strokePoints * 2];
+			}
+			points.position(mapped.getInt(entry) * 2);
+			points.get(replayPoints, 0, strokePoints * 2);
+
+			// Color is only made again when the pen color changes between strokes
+			boolean isEraser = (flags & ERASER_FLAG) != 0;
+			if (!isEraser && (strokeColor == null || strokeColor.getRGB() != (0xFF000000 | (pen & 0xFFFFFF)))) {
+				strokeColor = new Color(pen & 0xFFFFFF);
+			}
+			Rectangle strokeArea = renderer.render(target, replayPoints, strokePoints, sectors,
+					(flags & REFLECT_FLAG) != 0, isEraser, pen >>> 24, isEraser ? null : strokeColor);
+			if (!strokeArea.isEmpty()) {
+				touched = (touched == null) ? strokeArea : touched.union(strokeArea);
+			}
+		}
+		return (touched == null) ? new Rectangle() : touched;
+	}
+
+	// Method copies every stroke out of the archive into a history that can be drawn on and undone
+	public StrokeHistory toHistory() {
+		StrokeHistory history = new StrokeHistory();
+		FloatBuffer points = pointBuffer();
+		for (int i = 0; i < strokeCount; i++) {
+			int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+			int strokePoints = mapped.getInt(entry + 4);
+			int pen = mapped.getInt(entry + 8);
+			int flags = mapped.getInt(entry + 12);
+
+			LineData stroke = new LineData();
+			points.position(mapped.getInt(entry) * 2);
+			for (int p = 0; p < strokePoints; p++) {
+				stroke.addPoint(points.get(), points.get());
+			}
+			stroke.compact();
+			stroke.setPenSize(pen >>> 24);
+			stroke.setPenColor((pen >> 16) & 0xFF, (pen >> 8) & 0xFF, pen & 0xFF);
+			stroke.setReflect((flags & REFLECT_FLAG) != 0);
+			stroke.setEraser((flags & ERASER_FLAG) != 0);
+			history.push(stroke);
+		}
+		return history;
+	}
+
+	// Method returns the number of strokes in the archive
+	public int getStrokeCount() {
+		return strokeCount;
+	}
+
+	// Method returns the width of the canvas the strokes were drawn on
+	public int getCanvasWidth() {
+		return canvasWidth;
+	}
+
+	// Method returns the height of the canvas the strokes were drawn on
+	public int getCanvasHeight() {
+		return canvasHeight;
+	}
+
+	// Method returns the number of sectors the strokes were drawn with
+	public double getSectors() {
+		return sectors;
+	}
+
+	// Method returns a view of the packed points, each caller has its own position
+	private FloatBuffer pointBuffer() {
+		ByteBuffer pointBytes = mapped.duplicate();
+		pointBytes.position(pointsOffset());
+		return pointBytes.slice().asFloatBuffer();
+	}
+
+	// Method returns the position of the first point in the file
+	private int pointsOffset() {
+		return HEADER_SIZE + strokeCount * INDEX_ENTRY_SIZE;
+	}
+}
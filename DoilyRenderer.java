@@ -0,0 +1,562 @@
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class draws a stroke onto a buffered image once for every sector, and once more
+ * 		for every sector when the stroke is reflected
+ *
+ * The rotations and reflections come from a SymmetryTable which is only rebuilt when the number of sectors
+ * 		or the canvas size changes. Each copy is made by transforming the stroke points into a reused buffer
+ * 		which a reused PolylineShape views, so no shape or transform objects are created per copy
+ *
+ * Two modes are available. The serial mode draws every copy one after another on a single Graphics2D.
+ * 		The parallel mode splits the copies between the workers of a ForkJoinPool, each worker draws its
+ * 		copies onto a private layer covering the area touched by the stroke. The layers are then drawn onto
+ * 		the image in worker order with the pen composite
+ *
+ * Splitting by copy rather than by strip of the image means no copy is ever clipped part way, clipping changes
+ * 		which pixels a line steps through. As every copy of a stroke has the same opaque color the order the
+ * 		copies land in does not matter, so the output matches the serial mode pixel for pixel
+ *
+ * Strokes are stored in canvas coordinates. By default the canvas is the target image, a view can be set so that
+ * 		the canvas is scaled and moved onto a target of a different size, such as a larger export or a thumbnail
+ *
+ * As a second strategy the stroke can be drawn once onto a small tile covering its bounds, the tile is then
+ * 		stamped onto the image with a rotated or mirrored drawImage for every copy. Stamped copies are resampled
+ * 		so edge pixels may differ slightly from stroked copies. The auto strategy estimates the cost of a copy
+ * 		each way from the pen size, stroke length and tile size and uses the cheaper. The estimate only depends
+ * 		on the stroke and the view, so a stroke is always drawn the same way and any redraw of part of the
+ * 		surface matches what was drawn there before
+ * The tile of a stored stroke is kept so a replay, undo or change of sectors stamps it without stroking it again.
+ * 		Caching the stroked outline for the transform strategy instead was slower, filling the outline with its
+ * 		overlapping round joins costs more than stroking the line, and it placed some edge pixels differently
+ *
+ */
+class DoilyRenderer {
+	// Below this number of copies the cost of splitting the copies outweighs the gain
+	private static final int MIN_PARALLEL_COPIES = 16;
+	// Memory given to the tiles of stored strokes, around 1000 tiles of 64x64
+	private static final long TILE_BUDGET = 16L * 1024 * 1024;
+	// Memory kept for the layers of the parallel path between strokes, four layers for a canvas on screen
+	private static final long LAYER_BUDGET = 8L * 1024 * 1024;
+	/*
+	 *  Estimated cost of one copy for the auto strategy, measured on one core over pens of 1 to 30 pixels,
+	 *  	4 to 256 points and 6 to 90 sectors. A stamp costs a fixed amount for the transformed drawImage
+	 *  	and an amount per tile pixel, a stroke costs an amount per point growing with the pen. A one pixel
+	 *  	pen takes a much cheaper path through the rasteriser
+	 */
+	private static final double STAMP_COPY_NANOS = 4000;
+	private static final double STAMP_PIXEL_NANOS = 8;
+	private static final double THIN_POINT_NANOS = 200;
+	private static final double POINT_NANOS = 1000;
+	private static final double POINT_PEN_NANOS = 80;
+
+	// Ways a stroke can be repeated around the doily
+	enum Strategy { TRANSFORM, STAMP, AUTO }
+
+	/**
+	 * Each layer task draws its share of the copies onto a private transparent image, the private
+	 * 		image is only drawn onto the target once every task has finished
+	 *
+	 * Layers are the same size as the target rather than the touched area, any translation is avoided
+	 * 		as the rasteriser works in float precision and a shifted coordinate may round differently
+	 */
+	class layerTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private BufferedImage layerImg = null;
+		private int firstCopy = 0;
+		private int lastCopy = 0;
+		private float[] copyPoints = new float[0];
+		private PolylineShape copyShape = new PolylineShape(copyPoints, 0);
+		private Rectangle touched = null;
+
+		// Method sets the layer and the run of copies for the next stroke
+		public void prepare(BufferedImage layerImg, int firstCopy, int lastCopy) {
+			this.layerImg = layerImg;
+			this.firstCopy = firstCopy;
+			this.lastCopy = lastCopy;
+			if (copyPoints.length < sourceCount * 2) {
+				copyPoints = new float[sourceCount * 2];
+			}
+			reinitialize();
+		}
+
+		// Method draws the layer, this runs on a pool worker
+		protected void compute() {
+			Graphics2D layerObj = layerImg.createGraphics();
+			applyView(layerObj);
+			// Layer records coverage so the eraser is drawn in an opaque color and removed when merged
+			layerObj.setColor(isEraser ? Color.WHITE : penColor);
+			layerObj.setStroke(penStroke);
+
+			touched = drawCopies(layerObj, firstCopy, lastCopy, copyPoints, copyShape);
+			layerObj.dispose();
+		}
+
+		// Method returns the area touched by the copies of this layer, null if none were drawn
+		public Rectangle getTouched() {
+			return touched;
+		}
+
+		// Method draws the finished layer onto the target and clears it, this runs on the calling thread
+		public void merge(Graphics2D targetObj, Rectangle area) {
+			targetObj.drawImage(layerImg, area.x, area.y, area.x + area.width, area.y + area.height,
+					area.x, area.y, area.x + area.width, area.y + area.height, null);
+
+			// Touched area is cleared so the layer can be reused by the next stroke
+			Graphics2D layerObj = layerImg.createGraphics();
+			layerObj.setComposite(AlphaComposite.Clear);
+			layerObj.fillRect(area.x, area.y, area.width, area.height);
+			layerObj.dispose();
+			layerImg = null;
+		}
+	}
+
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private boolean isParallel = true;
+	private Strategy strategy = Strategy.TRANSFORM;
+	private Strategy lastStrategy = Strategy.TRANSFORM;
+	// Transform reused for every stamped copy, and the tiles of stored strokes already stamped
+	private AffineTransform stampTransform = new AffineTransform();
+	private StrokeTileCache tileCache = new StrokeTileCache(TILE_BUDGET);
+	private float[] tileCorners = new float[8];
+	// Transparent layers and their tasks, one for each worker, layers are only kept between strokes within the budget
+	private BufferedImage[] layerImgs = new BufferedImage[0];
+	private layerTask[] layerTasks = new layerTask[0];
+
+	private SymmetryTable symmetry = null;
+	// Canvas size the strokes are drawn in and the view onto the target, zero size and null view use the target
+	private int canvasWidth = 0;
+	private int canvasHeight = 0;
+	private AffineTransform view = null;
+	private AffineTransform viewInverse = null;
+	private AffineTransform entryTransform = new AffineTransform();
+	// Buffer and view reused for every copy drawn by the serial mode
+	private float[] copyPoints = new float[0];
+	private PolylineShape copyShape = new PolylineShape(copyPoints, 0);
+
+	// Stroke being drawn, the stored stroke is null when only points were given
+	private LineData sourceStroke = null;
+	private float[] sourcePoints = null;
+	private int sourceCount = 0;
+	private boolean isReflected = false;
+
+	// Pen information for the stroke currently being drawn, the BasicStroke is kept while the size is unchanged
+	private boolean isEraser = false;
+	private int penSize = -1;
+	private Color penColor = null;
+	private BasicStroke penStroke = null;
+
+	// Method allows the parallel mode to be switched on, or off to use the serial mode
+	public void setParallel(boolean isParallel) {
+		this.isParallel = isParallel;
+	}
+
+	// Method sets the pool the parallel mode draws on, the common pool is used by default
+	void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Method sets the canvas the strokes are drawn in and how it is placed on the target
+	 * @param canvasWidth width of the canvas, the centre of rotation is its centre
+	 * @param canvasHeight height of the canvas
+	 * @param scale number of target pixels per canvas pixel
+	 * @param offsetX target position of the left of the canvas
+	 * @param offsetY target position of the top of the canvas
+	 */
+	public void setView(int canvasWidth, int canvasHeight, double scale, double offsetX, double offsetY) {
+		AffineTransform newView = new AffineTransform(scale, 0, 0, scale, offsetX, offsetY);
+		// Tiles are drawn through the view so are only kept while it is unchanged
+		if (!newView.equals(view)) {
+			tileCache.clear();
+		}
+		this.canvasWidth = canvasWidth;
+		this.canvasHeight = canvasHeight;
+		this.view = newView;
+		this.viewInverse = new AffineTransform(1 / scale, 0, 0, 1 / scale, -offsetX / scale, -offsetY / scale);
+	}
+
+	/**
+	 * Method sets the view so the whole canvas fits the target at the largest size it can, centred on the target
+	 * The view is removed if the canvas and target are the same size so strokes are drawn exactly as stored
+	 */
+	public void fitView(int canvasWidth, int canvasHeight, int targetWidth, int targetHeight) {
+		if (canvasWidth == targetWidth && canvasHeight == targetHeight) {
+			clearView();
+			return;
+		}
+		double scale = fitScale(canvasWidth, canvasHeight, targetWidth, targetHeight);
+		setView(canvasWidth, canvasHeight, scale, (targetWidth - canvasWidth * scale) / 2,
+				(targetHeight - canvasHeight * scale) / 2);
+	}
+
+	// Method returns the number of target pixels per canvas pixel for a canvas fitted to the target
+	public static double fitScale(int canvasWidth, int canvasHeight, int targetWidth, int targetHeight) {
+		return Math.min((double) targetWidth / canvasWidth, (double) targetHeight / canvasHeight);
+	}
+
+	// Method removes any view so the canvas is the target image again
+	public void clearView() {
+		if (view != null) {
+			tileCache.clear();
+		}
+		this.canvasWidth = 0;
+		this.canvasHeight = 0;
+		this.view = null;
+		this.viewInverse = null;
+	}
+
+	// Method allows the way copies are made to be selected, AUTO picks the cheaper for each stroke
+	public void setStrategy(Strategy strategy) {
+		this.strategy = strategy;
+	}
+
+	// Method returns the strategy used for the last stroke drawn, never AUTO
+	public Strategy getLastStrategy() {
+		return lastStrategy;
+	}
+
+	/**
+	 * Method draws a stored stroke onto the target once per sector using the pen stored with it
+	 * @param target buffered image the stroke is drawn onto, the centre of rotation is its centre
+	 * @param stroke the stroke to be drawn
+	 * @param sectors number of sectors the stroke is repeated over
+	 * @return the area of the target touched by the copies, empty if nothing was drawn
+	 */
+	public Rectangle render(BufferedImage target, LineData stroke, double sectors) {
+		Color strokeColor = stroke.getEraser() ? null
+				: new Color(stroke.getPenRed(), stroke.getPenGreen(), stroke.getPenBlue());
+		// Stroke is kept while it is drawn so the stamp strategy can reuse its tile
+		sourceStroke = stroke;
+		try {
+			return render(target, stroke.getPoints(), stroke.getPointCount(), sectors, stroke.getReflect(),
+					stroke.getEraser(), stroke.getPenSize(), strokeColor);
+		} finally {
+			sourceStroke = null;
+		}
+	}
+
+	/**
+	 * Method draws the given points onto the target once per sector
+	 * @param target buffered image the points are drawn onto, the centre of rotation is its centre
+	 * @param points the points of the line as x, y pairs
+	 * @param pointCount the number of points to draw
+	 * @param sectors number of sectors the line is repeated over
+	 * @param isReflected whether each copy is also drawn mirrored
+	 * @param isEraser whether the line removes pixels rather than drawing them
+	 * @param penSize width of the pen
+	 * @param penColor color of the pen, unused for the eraser
+	 * @return the area of the target touched by the copies, empty if nothing was drawn
+	 */
+	public Rectangle render(BufferedImage target, float[] points, int pointCount, double sectors,
+			boolean isReflected, boolean isEraser, int penSize, Color penColor) {
+		// Table is only rebuilt when the sectors or the canvas have changed
+		int width = (view == null) ? target.getWidth() : canvasWidth;
+		int height = (view == null) ? target.getHeight() : canvasHeight;
+		if (symmetry == null || !symmetry.matches(sectors, width, height)) {
+			symmetry = new SymmetryTable(sectors, width, height);
+		}
+		if (penStroke == null || this.penSize != penSize) {
+			penStroke = new BasicStroke(penSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+		}
+		this.sourcePoints = points;
+		this.sourceCount = pointCount;
+		this.isReflected = isReflected;
+		this.isEraser = isEraser;
+		this.penSize = penSize;
+		this.penColor = penColor;
+
+		int copyCount = symmetry.getCopyCount(isReflected);
+		if (copyCount == 0 || pointCount == 0) {
+			return new Rectangle();
+		}
+
+		lastStrategy = (strategy == Strategy.AUTO) ? chooseStrategy() : strategy;
+
+		Rectangle touched = null;
+		if (lastStrategy == Strategy.STAMP) {
+			touched = renderStamp(target, copyCount);
+		} else if (isParallel && copyCount >= MIN_PARALLEL_COPIES && pool.getParallelism() > 1) {
+			touched = renderParallel(target, copyCount);
+		} else {
+			touched = renderSerial(target, copyCount);
+		}
+		return touched;
+	}
+
+	/**
+	 * Method returns the cheaper strategy for the stroke being drawn, used by the auto strategy
+	 * Every copy costs the same either way so only one copy is compared, the tile drawn once is left out
+	 * 		as it costs about one stroked copy. Sizes are taken through the scale of the view but not its
+	 * 		offset, so a stroke is drawn the same way on every part of the target
+	 */
+	private Strategy chooseStrategy() {
+		double scale = (view == null) ? 1 : view.getScaleX();
+		Rectangle strokeArea = new PolylineShape(sourcePoints, sourceCount).getBounds();
+		double targetPen = penSize * scale;
+		double tilePixels = (strokeArea.width * scale + targetPen + 4) * (strokeArea.height * scale + targetPen + 4);
+
+		double stampNanos = STAMP_COPY_NANOS + STAMP_PIXEL_NANOS * tilePixels;
+		double pointNanos = (targetPen <= 1) ? THIN_POINT_NANOS : POINT_NANOS + POINT_PEN_NANOS * targetPen;
+		return (stampNanos < pointNanos * sourceCount) ? Strategy.STAMP : Strategy.TRANSFORM;
+	}
+
+	/**
+	 * Method draws the stroke once onto a tile covering its bounds and stamps the tile onto the
+	 * 		target once per copy, rotated and mirrored by the symmetry table
+	 * The tile of a stored stroke is taken from the cache if it has been stamped before
+	 */
+	private Rectangle renderStamp(BufferedImage target, int copyCount) {
+		StrokeTileCache.tile strokeTile = (sourceStroke == null) ? null : tileCache.get(sourceStroke);
+		if (strokeTile == null) {
+			strokeTile = drawTile();
+			if (sourceStroke != null) {
+				tileCache.put(sourceStroke, strokeTile);
+			}
+		}
+		BufferedImage tileImg = strokeTile.getImage();
+		Rectangle tileArea = strokeTile.getTileArea();
+		Rectangle strokeArea = strokeTile.getStrokeArea();
+
+		// Corners of the stroke bounds are transformed with each copy to find the area touched
+		float[] corners = new float[] {
+				strokeArea.x, strokeArea.y, strokeArea.x + strokeArea.width, strokeArea.y,
+				strokeArea.x, strokeArea.y + strokeArea.height, strokeArea.x + strokeArea.width, strokeArea.y + strokeArea.height };
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+
+		Graphics2D repeatObj = target.createGraphics();
+		applyPen(repeatObj);
+		for (int copy = 0; copy < copyCount; copy++) {
+			int entry = symmetry.getEntry(copy, isReflected);
+
+			// Tile is moved from the target into the canvas, transformed there, and moved back onto the target
+			if (view == null) {
+				symmetry.getTransform(entry, stampTransform);
+			} else {
+				symmetry.getTransform(entry, entryTransform);
+				stampTransform.setTransform(view);
+				stampTransform.concatenate(entryTransform);
+				stampTransform.concatenate(viewInverse);
+			}
+			stampTransform.translate(tileArea.x, tileArea.y);
+			repeatObj.drawImage(tileImg, stampTransform, null);
+
+			symmetry.transform(entry, corners, 4, tileCorners);
+			for (int i = 0; i < tileCorners.length; i += 2) {
+				minX = Math.min(minX, tileCorners[i]);
+				maxX = Math.max(maxX, tileCorners[i]);
+				minY = Math.min(minY, tileCorners[i + 1]);
+				maxY = Math.max(maxY, tileCorners[i + 1]);
+			}
+		}
+		repeatObj.dispose();
+
+		int left = (int) Math.floor(minX);
+		int top = (int) Math.floor(minY);
+		return toTarget(new Rectangle(left, top, (int) Math.ceil(maxX) - left, (int) Math.ceil(maxY) - top), target);
+	}
+
+	// Method draws the stroke once onto a tile covering its bounds padded by the pen size, in target pixels
+	private StrokeTileCache.tile drawTile() {
+		Rectangle strokeArea = new PolylineShape(sourcePoints, sourceCount).getBounds();
+		Rectangle tileArea = toTarget(strokeArea, null);
+
+		// Eraser is drawn in an opaque color so its coverage is removed when stamped
+		BufferedImage tileImg = new BufferedImage(tileArea.width, tileArea.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D tileObj = tileImg.createGraphics();
+		tileObj.translate(-tileArea.x, -tileArea.y);
+		applyView(tileObj);
+		tileObj.setColor(isEraser ? Color.WHITE : penColor);
+		tileObj.setStroke(penStroke);
+		copyShape.setPoints(sourcePoints, sourceCount);
+		tileObj.draw(copyShape);
+		tileObj.dispose();
+		return new StrokeTileCache.tile(tileImg, tileArea, strokeArea);
+	}
+
+	// Method draws every copy one after another onto the target
+	private Rectangle renderSerial(BufferedImage target, int copyCount) {
+		if (copyPoints.length < sourceCount * 2) {
+			copyPoints = new float[sourceCount * 2];
+		}
+		Graphics2D repeatObj = target.createGraphics();
+		applyView(repeatObj);
+		applyPen(repeatObj);
+
+		Rectangle touched = drawCopies(repeatObj, 0, copyCount, copyPoints, copyShape);
+		repeatObj.dispose();
+		return toTarget(touched, target);
+	}
+
+	// Method splits the copies between layers which are drawn on the pool
+	private Rectangle renderParallel(BufferedImage target, int copyCount) {
+		// Copies are split into one contiguous run per worker
+		int layerCount = Math.min(pool.getParallelism(), copyCount);
+		List<layerTask> layers = new ArrayList<layerTask>();
+		for (int i = 0; i < layerCount; i++) {
+			layerTask nextLayer = getLayerTask(i);
+			nextLayer.prepare(getLayer(i, target), (copyCount * i) / layerCount, (copyCount * (i + 1)) / layerCount);
+			layers.add(nextLayer);
+		}
+
+		// Layers are drawn in parallel
+		pool.invoke(new RecursiveAction() {
+			protected void compute() {
+				invokeAll(layers);
+			}
+		});
+
+		// Once they have all finished the area touched by every layer is drawn onto the target in order
+		Rectangle touched = null;
+		for (layerTask nextLayer : layers) {
+			touched = union(touched, nextLayer.getTouched());
+		}
+		touched = toTarget(touched, target);
+		if (!touched.isEmpty()) {
+			Graphics2D targetObj = target.createGraphics();
+			applyPen(targetObj);
+			for (layerTask nextLayer : layers) {
+				nextLayer.merge(targetObj, touched);
+			}
+			targetObj.dispose();
+		}
+		releaseLayers();
+		return touched;
+	}
+
+	/**
+	 * Method draws a run of copies of the current stroke
+	 * Each copy is transformed into the given buffer which the given shape views, the bounds of the
+	 * 		transformed points are kept as they are written
+	 * @return the canvas area touched by the copies before padding for the pen, null if no copies were drawn
+	 */
+	private Rectangle drawCopies(Graphics2D repeatObj, int firstCopy, int lastCopy, float[] buffer, PolylineShape shape) {
+		if (firstCopy >= lastCopy) {
+			return null;
+		}
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+
+		shape.setPoints(buffer, sourceCount);
+		for (int copy = firstCopy; copy < lastCopy; copy++) {
+			symmetry.transform(symmetry.getEntry(copy, isReflected), sourcePoints, sourceCount, buffer);
+			for (int i = 0; i < sourceCount * 2; i += 2) {
+				minX = Math.min(minX, buffer[i]);
+				maxX = Math.max(maxX, buffer[i]);
+				minY = Math.min(minY, buffer[i + 1]);
+				maxY = Math.max(maxY, buffer[i + 1]);
+			}
+			repeatObj.draw(shape);
+		}
+		int left = (int) Math.floor(minX);
+		int top = (int) Math.floor(minY);
+		return new Rectangle(left, top, (int) Math.ceil(maxX) - left, (int) Math.ceil(maxY) - top);
+	}
+
+	/**
+	 * Method moves a canvas area onto the target through the view, then pads it by the pen size and a
+	 * 		pixel either side for rounding, then limits it to the target so that edges are clipped in the same place
+	 * The area is only moved and padded if no target is given
+	 */
+	private Rectangle toTarget(Rectangle touched, BufferedImage target) {
+		if (touched == null) {
+			return new Rectangle();
+		}
+		int padding = penSize / 2 + 2;
+		if (view != null) {
+			touched = view.createTransformedShape(touched).getBounds();
+			padding = (int) Math.ceil(penSize * view.getScaleX() / 2) + 2;
+		}
+		touched.grow(padding, padding);
+		if (target == null) {
+			return touched;
+		}
+		return touched.intersection(new Rectangle(0, 0, target.getWidth(), target.getHeight()));
+	}
+
+	// Method returns the union of two areas where either may be null
+	private Rectangle union(Rectangle first, Rectangle second) {
+		if (first == null) {
+			return second;
+		}
+		return (second == null) ? first : first.union(second);
+	}
+
+	// Method returns the task for the given worker, creating it the first time it is used
+	private layerTask getLayerTask(int index) {
+		if (layerTasks.length <= index) {
+			layerTasks = Arrays.copyOf(layerTasks, index + 1);
+		}
+		if (layerTasks[index] == null) {
+			layerTasks[index] = new layerTask();
+		}
+		return layerTasks[index];
+	}
+
+	// Method returns the layer for the given worker, creating it if it does not match the target size
+	private BufferedImage getLayer(int index, BufferedImage target) {
+		if (layerImgs.length <= index) {
+			layerImgs = Arrays.copyOf(layerImgs, index + 1);
+		}
+		BufferedImage layerImg = layerImgs[index];
+		if (layerImg == null || layerImg.getWidth() != target.getWidth() || layerImg.getHeight() != target.getHeight()) {
+			layerImg = new BufferedImage(target.getWidth(), target.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			layerImgs[index] = layerImg;
+		}
+		return layerImg;
+	}
+
+	/**
+	 * Method drops the layers that do not fit the layer budget once a parallel pass has finished
+	 * Layers for a large target such as an export are made again for each stroke rather than kept
+	 */
+	private void releaseLayers() {
+		long kept = 0;
+		for (int i = 0; i < layerImgs.length; i++) {
+			if (layerImgs[i] != null) {
+				kept += 4L * layerImgs[i].getWidth() * layerImgs[i].getHeight();
+				if (kept > LAYER_BUDGET) {
+					layerImgs[i] = null;
+				}
+			}
+		}
+	}
+
+	// Method places the canvas onto the target for the given graphics object if a view is set
+	private void applyView(Graphics2D repeatObj) {
+		if (view != null) {
+			repeatObj.transform(view);
+		}
+	}
+
+	/**
+	 * Method sets the pen onto the given graphics object
+	 * If the current pen is an eraser alpha composite mask is set over the top to modify
+	 * 		the pixels in the buffered image to draw out
+	 */
+	private void applyPen(Graphics2D repeatObj) {
+		if (isEraser) {
+			repeatObj.setComposite(AlphaComposite.DstOut);
+		} else {
+			repeatObj.setComposite(AlphaComposite.SrcOver);
+			repeatObj.setColor(penColor);
+		}
+		repeatObj.setStroke(penStroke);
+	}
+}
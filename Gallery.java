@@ -1,262 +1,632 @@
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
-import java.awt.FlowLayout;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.Image;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
+import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
-import java.util.Stack;
 
 /**
  * @author James Marsh
  * This class manages the gallery and user interactions with the control panel to
  * 		store images and restore images that have been saved
  *
+ * The gallery holds any number of doilies. Only the panels in view are painted, a single panel is reused
+ * 		to paint every entry so the number of entries does not change the number of components
+ * There is always an empty entry at the end, saving into it adds another so the gallery grows as it is used
+ *
+ * Each saved doily is kept on disk as an archive and a thumbnail in the gallery directory, so the gallery is
+ * 		kept between sessions and entries hold no strokes or images in memory. The directory defaults to
+ * 		.digitaldoilies/gallery in the home directory and may be set with the doily.gallery system property.
+ * 		Thumbnails in view are held in a cache of fixed size and read back from disk once removed from it
+ *
+ * Archives are written, read and scaled into thumbnails on a single background thread in the order they were
+ * 		asked for, so the interface does not wait on the disk. A panel shows a placeholder until its thumbnail is ready
+ *
  */
 public class Gallery extends JPanel{
 	/**
-	 * The show panel class holds the specific data and the current selected for each
-	 * 		individual panel which holds images independent of each other
-	 * 
+	 * The gallery entry class holds the data for each saved doily, the strokes and image are kept
+	 * 		on disk under the id of the entry
+	 *
 	 */
-	class showPanel extends JPanel{
-		
-		private Stack<LineData> instructions = new Stack<LineData>();
-		
-		private boolean resetImg = false;
-		private boolean isSelected = false;
-		private Image paintedImg = null;
-		
+	class galleryEntry {
+		private int id = 0;
+		private boolean isSaved = false;
+		private boolean isPending = false;
+		// Counts the changes asked of the entry so background work finishing late does not undo a newer change
+		private int version = 0;
+
+		public galleryEntry(int id) {
+			this.id = id;
+		}
+
+		// Method returns the id the files of the entry are named by
+		public int getId() {
+			return id;
+		}
+
+		// Method sets whether there is a doily saved in the entry
+		public void setSaved(boolean isSaved) {
+			this.isSaved = isSaved;
+		}
+
+		// Method returns whether there is a doily saved in the entry
+		public boolean getSaved() {
+			return isSaved;
+		}
+
+		// Method marks the entry as waiting for background work, a placeholder is shown in place of the image
+		public void setPending(boolean isPending) {
+			this.isPending = isPending;
+		}
+
+		// Method returns whether the entry is waiting for background work
+		public boolean getPending() {
+			return isPending;
+		}
+
+		// Method starts a new change to the entry and returns its version
+		public int nextVersion() {
+			return ++version;
+		}
+
+		// Method returns the version of the latest change to the entry
+		public int getVersion() {
+			return version;
+		}
+
+		// Method returns whether the given version is still the latest change to the entry
+		public boolean isCurrent(int changeVersion) {
+			return version == changeVersion;
+		}
+	}
+
+	/**
+	 * The show panel class paints a single entry of the gallery, the same panel is reused by the list
+	 * 		for every entry in view
+	 *
+	 */
+	class showPanel extends JPanel implements ListCellRenderer<galleryEntry> {
+
+		private BufferedImage paintedImg = null;
+		private boolean isPending = false;
+
 		// Method clears the background and border and sets the preferred size for consistency of scaling
 		public showPanel() {
-			this.setBackground(Color.white);
+			this.setBackground(Color.GRAY);
 			this.setPreferredSize(new Dimension(100,100));
-			this.setBorder(BorderFactory.createLineBorder(Color.black));
-		}
-		
-		// Method toggles the current value, inverting it from the stored value
-		public void setToggleSelected() {
-			isSelected = !isSelected;
-		}
-		
-		// Method sets the current image stored as to the one that is passed in
-		public void setImage(Image doilyImage) {
-			paintedImg = doilyImage;
-		}
-		
-		// Method sets the current stored stack as to the one passed in
-		public void setInstructions(Stack<LineData> doilyInstructions) {
-			instructions = doilyInstructions;
-		}
-		
-		// Method returns the boolean stored to check if the current panel is selected
-		public boolean getSelected() {
-			return isSelected;
-		}
-		
-		// Method returns the Stack stored to check if the current panel is selected
-		public Stack<LineData> getInstructions() {
-			return instructions;
-		}
-		
-		// Method clears and signs the panel to be reset later on
-		public void resetImage() {
-			resetImg = true;
-			instructions.clear();
-		}
-		
-		// Method redraws the panel with the given image provided that it was not marked for reset
+		}
+
+		// Method sets the panel up to paint the given entry, with the border showing if it is selected or under the mouse
+		public Component getListCellRendererComponent(JList<? extends galleryEntry> list, galleryEntry entry,
+				int index, boolean isSelected, boolean cellHasFocus) {
+			Color borderColor = isSelected ? Color.blue : (index == hoverIndex ? Color.red : Color.black);
+			this.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(5, 5, 5, 5,
+					list.getBackground()), BorderFactory.createLineBorder(borderColor)));
+
+			isPending = entry.getPending();
+			paintedImg = null;
+			if (entry.getSaved() && !isPending) {
+				paintedImg = thumbnails.get(entry.getId());
+				// Thumbnail is read in the background if it is not held, a placeholder is shown until then
+				if (paintedImg == null) {
+					requestThumbnail(entry);
+					isPending = true;
+				}
+			}
+			return this;
+		}
+
+		// Method redraws the panel with the image of the entry, or a placeholder if it is not ready
 		public void paintComponent(Graphics g) {
 			super.paintComponent(g);
-			// Default background initialised
-			this.setBackground(Color.GRAY);
-			
-			// Reset query is tested and sets as background image or resets if required
-			if (!resetImg) {
-				g.drawImage(paintedImg, -5, 0, this);
-				
-			} else {
-				paintedImg = null;
-				resetImg = false;
+
+			if (isPending) {
+				// Placeholder is drawn until the thumbnail is made
+				g.setColor(Color.LIGHT_GRAY);
+				g.drawString("...", this.getWidth() / 2 - 6, this.getHeight() / 2);
+			} else if (paintedImg != null) {
+				g.drawImage(paintedImg, 0, 5, this);
 			}
 		}
 	}
-	
+
 	/**
-	 * 
-	 * Listener class that is implements MouseListener so that
-	 * 		any panel that adds it will operate on mouse changes and clicks on it
+	 *
+	 * Listener class that is extends MouseAdapter so that
+	 * 		the gallery list will operate on mouse changes and clicks on it
 	 *
 	 */
-	class showPanelListener implements MouseListener {
-		
-		// Method resets all selects and updates the border when a panel is clicked
+	class showPanelListener extends MouseAdapter {
+
+		// Method selects the clicked entry and shows it on the display
 		public void mouseClicked(MouseEvent e) {
-			// Resets all panels
-			resetAllSelects();
-			// Toggles current panel as the selected panel
-			((showPanel) e.getComponent()).setToggleSelected();
-			// Updates all borders for each panel
-			updateBorder((showPanel)e.getComponent(), Color.blue);
-			
+			int index = entryAt(e);
+			if (index == -1) {
+				return;
+			}
+			currentSelect = index;
+			galleryList.setSelectedIndex(index);
+
 			// If the panel contains a saved doily it is displayed
 			displaySavedDoily();
 		}
 
-		// Mouse entered method allows for border change when mouse enters its space
-		public void mouseEntered(MouseEvent e) {
-			updateBorder((showPanel)e.getComponent(), Color.red);
+		// Mouse moved method allows for border change when mouse enters an entry
+		public void mouseMoved(MouseEvent e) {
+			setHoverIndex(entryAt(e));
 		}
 
-		// Mouse exit method allows for border change when mouse exits its space
+		// Mouse exit method allows for border change when mouse exits the gallery
 		public void mouseExited(MouseEvent e) {
-			updateBorder((showPanel)e.getComponent(), Color.black);
+			setHoverIndex(-1);
 		}
 
-		public void mousePressed(MouseEvent e) { }
-
-		public void mouseReleased(MouseEvent e) { }
+		// Method returns the index of the entry under the mouse, -1 if there is none
+		private int entryAt(MouseEvent e) {
+			int index = galleryList.locationToIndex(e.getPoint());
+			if (index != -1 && !galleryList.getCellBounds(index, index).contains(e.getPoint())) {
+				return -1;
+			}
+			return index;
+		}
 	}
-	
+
+	// Files of an entry are named by its id
+	private static final String SLOT_PREFIX = "slot-";
+	private static final String SLOT_EXTENSION = ".doily";
+	private static final String THUMBNAIL_EXTENSION = ".png";
+
+	// Memory given to thumbnails in view, around 800 thumbnails of 100x100
+	private static final long THUMBNAIL_BUDGET = 32L * 1024 * 1024;
+
 	// Private values allow for strong encapsulation and definitions
-	private showPanel[] savedDoilies = new showPanel[12];	
+	private DefaultListModel<galleryEntry> savedDoilies = new DefaultListModel<galleryEntry>();
+	private JList<galleryEntry> galleryList = new JList<galleryEntry>(savedDoilies);
+	private ThumbnailCache thumbnails = new ThumbnailCache(THUMBNAIL_BUDGET);
 	private Display currentDisplayInstance = null;
-	
+	// Timings of the gallery are kept with those of the display once it is given
+	private volatile RenderMetrics metrics = new RenderMetrics();
+
+	// Thread for the disk and thumbnail work of the gallery, tasks run one at a time in the order they are given
+	private ExecutorService galleryWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable task) {
+			Thread worker = new Thread(task, "gallery-worker");
+			worker.setDaemon(true);
+			return worker;
+		}
+	});
+	// Thread opening the doilies clicked, apart from the gallery thread so a click never waits behind thumbnails
+	private ExecutorService loadWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable task) {
+			Thread worker = new Thread(task, "gallery-loader");
+			worker.setDaemon(true);
+			return worker;
+		}
+	});
+	// Ids of entries whose thumbnails are being read, and of entries in view which are still worth reading
+	private Set<Integer> thumbnailsRequested = new HashSet<Integer>();
+	private Set<Integer> thumbnailsInView = ConcurrentHashMap.newKeySet();
+	private Path galleryDir = Paths.get(System.getProperty("doily.gallery",
+			Paths.get(System.getProperty("user.home"), ".digitaldoilies", "gallery").toString()));
+
 	private int currentSelect = -1;
-	private int mainDoilyHeight = 0;
-	private int mainDoilyWidth = 0;
-	
+	// Number of doilies asked to be shown, only the last one asked for is shown
+	private int loadCount = 0;
+	private int hoverIndex = -1;
+	private int nextId = 0;
+
 	/**
 	 * Constructor takes and initialises the gallery with the slider bars so that it is easier
 	 * 		to navigate and use
-	 * @param height is taken so that the images can be scaled properly
-	 * @param width is taken so that the images can be set properly
-	 * 
-	 * All arguments are stored for later use
+	 * Thumbnails are sized from the canvas each doily was drawn in, so no size is taken here
 	 */
-	public Gallery(int height, int width) {
-		mainDoilyHeight = height;
-		mainDoilyWidth = width;
+	public Gallery() {
 		this.setPreferredSize(new Dimension(650, 125));
-		
+
 		// Layout is defined as a border layout for the gallery
 		this.setLayout(new BorderLayout());
-		// Master panel is set for each gallery saved panel
-		JPanel galleryWindow = new JPanel();
-		// The master panel as a sub layout of flow layout so that panels all appear in a line
-		galleryWindow.setLayout(new FlowLayout());
-		// Border is set so that the drag bar is not obscured
-		galleryWindow.setBorder(BorderFactory.createEmptyBorder(0, 0, 15, 0));
-		
-		// Loop adds each panel to an index of the array, far more effective than adding 12 separate panels
-		for (int i = 0; i < 12; i++) {
-			savedDoilies[i] = new showPanel();
-			savedDoilies[i].addMouseListener(new showPanelListener());
-			// Each new window is added to the master panel
-			galleryWindow.add(savedDoilies[i]);
-		}
-		
-		// Master panel is added to the gallery instance on the digital window
-		this.add(galleryWindow, BorderLayout.CENTER);
-		
+
+		/*
+		 *  List lays the entries out in a single line, each is the same size so the list can find the entries
+		 *  	in view without measuring them
+		 */
+		galleryList.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+		galleryList.setVisibleRowCount(1);
+		galleryList.setFixedCellWidth(110);
+		galleryList.setFixedCellHeight(110);
+		galleryList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		galleryList.setBackground(this.getBackground());
+		galleryList.setCellRenderer(new showPanel());
+
+		showPanelListener galleryListener = new showPanelListener();
+		galleryList.addMouseListener(galleryListener);
+		galleryList.addMouseMotionListener(galleryListener);
+
+		// Any doily saved during an earlier session is restored, followed by the empty entry
+		for (int id : savedIds()) {
+			galleryEntry savedEntry = new galleryEntry(id);
+			savedEntry.setSaved(true);
+			savedDoilies.addElement(savedEntry);
+			nextId = id + 1;
+		}
+		savedDoilies.addElement(new galleryEntry(nextId++));
+
 		// Drag bar is added and conditions set
-		JScrollPane galleryScroll = new JScrollPane(galleryWindow);
+		JScrollPane galleryScroll = new JScrollPane(galleryList);
 		// Conditional policy set so that there does not exist a vertical scroll bar
 		galleryScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_NEVER);
-		// Scroll bar is added to the bottom of the master panel
-		this.add(galleryScroll, BorderLayout.SOUTH);
-		
+		galleryScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
+		// Thumbnails waiting to be read are skipped once they are scrolled out of view
+		galleryScroll.getViewport().addChangeListener(new ChangeListener() {
+			public void stateChanged(ChangeEvent e) {
+				updateInView();
+			}
+		});
+		// List is added to the gallery instance on the digital window
+		this.add(galleryScroll, BorderLayout.CENTER);
 	}
-	
+
 	/*
-	 *  Method is activated on click of panel and sends the stack information to a setter on the main display
+	 *  Method is activated on click of panel and sends the archive of the entry to a setter on the main display
 	 *  	 window for the image to be shown on the main display
+	 *  The archive is opened on a thread of its own and replayed on the render thread of the display, a doily
+	 *  	clicked before the last one has been shown replaces it. It is not shown at all if the user has
+	 *  	changed the strokes since clicking, as showing it would throw those changes away
 	 */
 	public void displaySavedDoily() {
+		final galleryEntry savedEntry = savedDoilies.get(currentSelect);
 		// Check to see if there exists a set of instructions for the panel in question
-		if (!savedDoilies[currentSelect].getInstructions().isEmpty()) {
-			// If there does then that stack of instructions is passed back out
-			this.currentDisplayInstance.displaySavedDoily(savedDoilies[currentSelect].getInstructions());
+		if (this.currentDisplayInstance == null || !savedEntry.getSaved() || savedEntry.getPending()) {
+			return;
 		}
+		final int load = ++loadCount;
+		final Display shownDisplay = this.currentDisplayInstance;
+		final int edit = shownDisplay.getEditCount();
+		loadWorker.execute(new Runnable() {
+			public void run() {
+				RenderEvents.galleryLoadEvent loadEvent = new RenderEvents.galleryLoadEvent();
+				loadEvent.begin();
+				long startTime = System.nanoTime();
+				try {
+					final DoilyArchive savedArchive = DoilyArchive.open(archiveFile(savedEntry.getId()));
+					/*
+					 *  If there does then the archive is passed back out to be replayed unless another was clicked
+					 *  	or the strokes were changed since
+					 */
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							if (load == loadCount && edit == shownDisplay.getEditCount()
+									&& savedArchive.getStrokeCount() > 0) {
+								shownDisplay.displaySavedDoily(savedArchive);
+							}
+						}
+					});
+				} catch (IOException e) {
+					System.err.println("Doily could not be loaded from the gallery: " + e.getMessage());
+				}
+				metrics.addGalleryLoad(System.nanoTime() - startTime);
+				loadEvent.entry = savedEntry.getId();
+				loadEvent.isReplayed = true;
+				loadEvent.commit();
+			}
+		});
 	}
-	
+
+	// Method sets the display saved doilies are shown on, so doilies restored from disk can be shown before any save
+	public void setDisplay(Display currentDisplayInstance) {
+		this.currentDisplayInstance = currentDisplayInstance;
+		this.metrics = currentDisplayInstance.getRenderMetrics();
+	}
+
+	// Method returns the entry selected to be saved into, null if none is selected
+	public galleryEntry getSelectedEntry() {
+		return (currentSelect == -1) ? null : savedDoilies.get(currentSelect);
+	}
+
 	/**
 	 * Method for displaying the doily as a smaller image in the gallery
 	 * @param currentDisplayInstance passes in an instance of the drawing panel if there already isn't one
-	 * @param doilyImg The image to be resized is passed in
+	 * @param savedEntry The entry selected when the save was asked for, the save is dropped if it has been removed
+	 * @param doilyImg The image to be resized is passed in, it is kept by the gallery so must not be drawn on again
 	 * @param doilyInstructions The instructions for redrawing and resuming drawing is passed in to be stored
+	 * @param sectors The number of sectors the doily was drawn with, stored so it can be redrawn alone
+	 * @param canvasWidth width of the canvas the strokes are stored in, which the image is fitted to
+	 * @param canvasHeight height of the canvas the strokes are stored in
 	 */
-	public void saveDoilyToFrame(Display currentDisplayInstance, BufferedImage doilyImg, Stack<LineData> doilyInstructions) {
+	public void saveDoilyToFrame(Display currentDisplayInstance, final galleryEntry savedEntry, BufferedImage doilyImg,
+			StrokeHistory doilyInstructions, double sectors, final int canvasWidth, final int canvasHeight) {
 		/*
 		 *  If the drawing panel does not already exist then it must be passed in so that it's setters can be recalled when required
 		 *  This is done for stronger encapsulation of the project by only using setters and getters to interact with private variables
 		 */
 		if (this.currentDisplayInstance == null) {
-			this.currentDisplayInstance = currentDisplayInstance;
-			// If the doily size as has changed dependent on preferred information then it will update the sizing
-			mainDoilyHeight = doilyImg.getHeight();
-			mainDoilyWidth = doilyImg.getWidth();
-		}
-		
-		// For a given image it will be rescaled down to match the size of the gallery panel of 100x100
-		Image scaledImg = doilyImg.getScaledInstance((int)(mainDoilyWidth * (100.0 / (double)mainDoilyHeight)), 100, Image.SCALE_SMOOTH);
-		
-		// If there is a current version of the panel which is selected hence the -1 acts as a null pointer it will store the image
-		if (currentSelect != -1) {
-			// Temporary stack is created so that the stored version is independent of the current and ongoing modified version
-			Stack<LineData> transferStack = new Stack<LineData>();
-			transferStack.addAll(doilyInstructions);
-			// Information for the future and current images are stored for referencing
-			savedDoilies[currentSelect].setInstructions(transferStack);
-			savedDoilies[currentSelect].setImage(scaledImg);
-			
-			// Gallery object is repainted so that it displays the new image
-			savedDoilies[currentSelect].repaint();
+			setDisplay(currentDisplayInstance);
 		}
+
+		/*
+		 *  The entry is the one selected when save was pressed, as another may have been selected while the image
+		 *  	was drawn. An entry removed since then is not saved into
+		 */
+		int savedIndex = savedDoilies.indexOf(savedEntry);
+		if (savedIndex == -1) {
+			System.err.println("Doily was not saved as its gallery entry has been removed");
+			return;
+		}
+		final int id = savedEntry.getId();
+		final int version = savedEntry.nextVersion();
+		/*
+		 *  History is copied so that the stored version is independent of the current and ongoing modified
+		 *  	version, the copy shares its strokes. The image given is already a copy made by the display so it is
+		 *  	used as it is. Both are written and scaled in the background
+		 */
+		final StrokeHistory savedHistory = doilyInstructions.copy();
+		final BufferedImage savedImg = doilyImg;
+		final double savedSectors = sectors;
+
+		// Placeholder is shown until the thumbnail is ready
+		savedEntry.setPending(true);
+		thumbnails.remove(id);
+		// Saving into the empty entry at the end adds a new empty entry after it
+		if (savedIndex == savedDoilies.size() - 1) {
+			savedDoilies.addElement(new galleryEntry(nextId++));
+		}
+		repaintEntry(savedEntry);
+
+		galleryWorker.execute(new Runnable() {
+			public void run() {
+				/*
+				 *  History is written to the archive of the entry so that it is kept once the program
+				 *  	is closed, the thumbnail is written beside it so it can be read back without replaying
+				 */
+				RenderEvents.gallerySaveEvent saveEvent = new RenderEvents.gallerySaveEvent();
+				saveEvent.begin();
+				long startTime = System.nanoTime();
+				BufferedImage thumbnailImg = scaleToFrame(savedImg, canvasWidth, canvasHeight);
+				boolean isSaved = false;
+				try {
+					Files.createDirectories(galleryDir);
+					DoilyArchive.write(archiveFile(id), savedHistory, canvasWidth, canvasHeight, savedSectors);
+					ImageIO.write(thumbnailImg, "png", thumbnailFile(id).toFile());
+					isSaved = true;
+				} catch (IOException e) {
+					System.err.println("Doily could not be saved to the gallery: " + e.getMessage());
+				}
+				metrics.addGallerySave(System.nanoTime() - startTime);
+				saveEvent.entry = id;
+				saveEvent.strokes = savedHistory.size();
+				saveEvent.isSaved = isSaved;
+				saveEvent.commit();
+				showDoilyFrame(savedEntry, version, isSaved, thumbnailImg);
+			}
+		});
 	}
-	
-	// Method removes the image from the frame
+
+	// Method removes the doily from the gallery
 	public void removeDoilyFrame() {
-		// Check to see if the frame a frame has been clicked or not
-		if (currentSelect != -1) {
-			// If there is a the reset image for the specific gallery panel is invoked and repainted to show the change
-			savedDoilies[currentSelect].resetImage();
-			savedDoilies[currentSelect].repaint();
-		}
-	}	
-	
-	// Method updates the border colours
-	private void updateBorder(showPanel modifPanel, Color borderColor) {
-		// The border color is set independent of if it is selected by default
-		modifPanel.setBorder(BorderFactory.createLineBorder(borderColor));
-		for (int i = 0; i < 12; i++) {
-			if (savedDoilies[i].getSelected() == true) {
-				// The current selected border is then updated to blue
-				savedDoilies[i].setBorder(BorderFactory.createLineBorder(Color.blue));
-				// The current selected panel is then tracked by updating the currentSelect variable
-				currentSelect = i;
-				
+		// Check to see if the frame a frame has been clicked or not, the empty entry at the end is kept
+		if (currentSelect != -1 && currentSelect != savedDoilies.size() - 1) {
+			galleryEntry removedEntry = savedDoilies.get(currentSelect);
+			final int id = removedEntry.getId();
+			// Any save still being made for the entry is ignored once it finishes
+			removedEntry.nextVersion();
+			thumbnails.remove(id);
+			// The entry is removed from the list and nothing is left selected
+			savedDoilies.remove(currentSelect);
+			galleryList.clearSelection();
+			currentSelect = -1;
+			// The files are removed after any save queued before it so the entry stays removed in the next session
+			galleryWorker.execute(new Runnable() {
+				public void run() {
+					try {
+						Files.deleteIfExists(archiveFile(id));
+						Files.deleteIfExists(thumbnailFile(id));
+					} catch (IOException e) {
+						System.err.println("Doily could not be removed from the gallery: " + e.getMessage());
+					}
+				}
+			});
+		}
+	}
+
+	// Method returns the number of entries in the gallery including the empty entry at the end
+	public int getEntryCount() {
+		return savedDoilies.size();
+	}
+
+	// Method reads the thumbnail of a saved entry in the background, from its file or by replaying its archive
+	private void requestThumbnail(final galleryEntry savedEntry) {
+		final int id = savedEntry.getId();
+		if (!thumbnailsRequested.add(id)) {
+			return;
+		}
+		final int version = savedEntry.getVersion();
+		thumbnailsInView.add(id);
+
+		galleryWorker.execute(new Runnable() {
+			public void run() {
+				// Entries scrolled out of view before their turn are left to be requested again when shown
+				if (!thumbnailsInView.contains(id)) {
+					showThumbnail(savedEntry, version, null);
+					return;
+				}
+				RenderEvents.galleryLoadEvent loadEvent = new RenderEvents.galleryLoadEvent();
+				loadEvent.begin();
+				long startTime = System.nanoTime();
+				BufferedImage thumbnailImg = null;
+				try {
+					if (Files.exists(thumbnailFile(id))) {
+						thumbnailImg = ImageIO.read(thumbnailFile(id).toFile());
+					}
+					if (thumbnailImg == null) {
+						// Doily is replayed at the size it was drawn to make the thumbnail, which is kept for next time
+						DoilyArchive savedArchive = DoilyArchive.open(archiveFile(id));
+						BufferedImage doilyImg = new BufferedImage(savedArchive.getCanvasWidth(),
+								savedArchive.getCanvasHeight(), BufferedImage.TYPE_INT_ARGB);
+						savedArchive.replay(new DoilyRenderer(), doilyImg, savedArchive.getSectors());
+						thumbnailImg = scaleToFrame(doilyImg, savedArchive.getCanvasWidth(), savedArchive.getCanvasHeight());
+						ImageIO.write(thumbnailImg, "png", thumbnailFile(id).toFile());
+						loadEvent.isReplayed = true;
+					}
+				} catch (IOException e) {
+					System.err.println("Doily could not be loaded from the gallery: " + e.getMessage());
+				}
+				metrics.addGalleryLoad(System.nanoTime() - startTime);
+				loadEvent.entry = id;
+				loadEvent.isThumbnail = true;
+				loadEvent.commit();
+				showThumbnail(savedEntry, version, thumbnailImg);
+			}
+		});
+	}
+
+	/**
+	 * Method hands the result of a save back to the interface thread to be shown in the gallery
+	 * 		provided the entry has not been changed again since the save was asked for
+	 * @param isSaved whether the archive was written
+	 * @param thumbnailImg the image of the entry
+	 */
+	private void showDoilyFrame(final galleryEntry savedEntry, final int version, final boolean isSaved,
+			final BufferedImage thumbnailImg) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				if (!savedEntry.isCurrent(version)) {
+					return;
+				}
+				savedEntry.setPending(false);
+				if (isSaved) {
+					savedEntry.setSaved(true);
+					thumbnails.put(savedEntry.getId(), thumbnailImg);
+				}
+				// Gallery object is repainted so that it displays the new image
+				repaintEntry(savedEntry);
 			}
+		});
+	}
+
+	// Method hands a thumbnail read in the background back to the interface thread to be cached and shown
+	private void showThumbnail(final galleryEntry savedEntry, final int version, final BufferedImage thumbnailImg) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				thumbnailsRequested.remove(savedEntry.getId());
+				if (thumbnailImg == null || !savedEntry.isCurrent(version)) {
+					return;
+				}
+				thumbnails.put(savedEntry.getId(), thumbnailImg);
+				repaintEntry(savedEntry);
+			}
+		});
+	}
+
+	// Method records the entries in view so that thumbnails requested for entries scrolled past are skipped
+	private void updateInView() {
+		int first = galleryList.getFirstVisibleIndex();
+		int last = galleryList.getLastVisibleIndex();
+		Set<Integer> inView = new HashSet<Integer>();
+		for (int i = first; i != -1 && i <= last; i++) {
+			inView.add(savedDoilies.get(i).getId());
 		}
+		thumbnailsInView.retainAll(inView);
 	}
-	
-	// Method resets all selected panels
-	private void resetAllSelects() {
-		for (int i = 0; i < 12; i++) {
-			if (savedDoilies[i].getSelected() == true) {
-				// If any panels are set to be true they are returned to false
-				savedDoilies[i].setToggleSelected();
+
+	// Method repaints the area of the list holding the given entry, if it is still in the list
+	private void repaintEntry(galleryEntry entry) {
+		int index = savedDoilies.indexOf(entry);
+		if (index != -1) {
+			galleryList.repaint(galleryList.getCellBounds(index, index));
+		}
+	}
+
+	// Method changes the entry under the mouse and repaints the entries whose border changes
+	private void setHoverIndex(int index) {
+		if (index == hoverIndex) {
+			return;
+		}
+		int previous = hoverIndex;
+		hoverIndex = index;
+		if (previous != -1 && previous < savedDoilies.size()) {
+			galleryList.repaint(galleryList.getCellBounds(previous, previous));
+		}
+		if (index != -1) {
+			galleryList.repaint(galleryList.getCellBounds(index, index));
+		}
+	}
+
+	// Method returns the ids of the archives in the gallery directory in the order they were made
+	private List<Integer> savedIds() {
+		List<Integer> ids = new ArrayList<Integer>();
+		if (!Files.isDirectory(galleryDir)) {
+			return ids;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(galleryDir, SLOT_PREFIX + "*" + SLOT_EXTENSION)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					ids.add(Integer.parseInt(name.substring(SLOT_PREFIX.length(), name.length() - SLOT_EXTENSION.length())));
+				} catch (NumberFormatException e) {
+					// Files not named by the gallery are left alone
+				}
 			}
-			// Default border color background of black is set to update the change
-			savedDoilies[i].setBorder(BorderFactory.createLineBorder(Color.black));
+		} catch (IOException e) {
+			System.err.println("Gallery could not be read: " + e.getMessage());
 		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * Method scales an image of the doily down to match the size of the gallery panel of 100x100
+	 * The canvas is fitted to the middle of the image so only that area is scaled, leaving out the margins
+	 * 		of a surface with a different shape to the canvas
+	 */
+	private BufferedImage scaleToFrame(BufferedImage doilyImg, int canvasWidth, int canvasHeight) {
+		long startTime = System.nanoTime();
+		double scale = DoilyRenderer.fitScale(canvasWidth, canvasHeight, doilyImg.getWidth(), doilyImg.getHeight());
+		int areaWidth = Math.max(1, Math.min(doilyImg.getWidth(), (int) Math.round(canvasWidth * scale)));
+		int areaHeight = Math.max(1, Math.min(doilyImg.getHeight(), (int) Math.round(canvasHeight * scale)));
+		BufferedImage canvasImg = doilyImg.getSubimage((doilyImg.getWidth() - areaWidth) / 2,
+				(doilyImg.getHeight() - areaHeight) / 2, areaWidth, areaHeight);
+		BufferedImage thumbnailImg = Thumbnails.downscale(canvasImg, (int)(canvasWidth * (100.0 / (double)canvasHeight)), 100);
+		metrics.addThumbnail(System.nanoTime() - startTime);
+		return thumbnailImg;
+	}
+
+	// Method returns the archive file for the given entry
+	private Path archiveFile(int id) {
+		return galleryDir.resolve(SLOT_PREFIX + id + SLOT_EXTENSION);
+	}
+
+	// Method returns the thumbnail file for the given entry
+	private Path thumbnailFile(int id) {
+		return galleryDir.resolve(SLOT_PREFIX + id + THUMBNAIL_EXTENSION);
 	}
 }
@@ -0,0 +1,232 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class finds the strokes of a history which are hidden by the strokes drawn after them so they can be
+ * 		skipped when the history is redrawn
+ * A stroke is hidden once every pixel it touches has been fully painted over by a later stroke or fully removed
+ * 		by a later eraser, the surface is then the same whether it is drawn or not
+ *
+ * The history is walked from the newest stroke to the oldest keeping, for every pixel, the index of the first
+ * 		later stroke to fully cover it. A stroke is hidden by the strokes up to the largest of those indexes over
+ * 		the pixels it touches, so the result also holds after undo as long as those strokes are still drawn
+ *
+ * Drawing has no antialiasing so each pixel is either covered or not. The transform and stamp strategies place
+ * 		pixels slightly differently, so strokes are drawn with the strategy the display uses. The auto strategy
+ * 		picks the same way for a stroke every time it is drawn so it is used as it is, and a pass is only used
+ * 		while the strategy it was made with is still set
+ *
+ * Strokes are drawn fitted from their canvas onto a surface of the size they are shown at, as the display
+ * 		draws them, since which pixels a stroke covers changes with the scale
+ *
+ * Passes run on a single background thread, a pass asked for while one is waiting replaces it. A pass only starts
+ * 		once no pass has been asked for over a short quiet period, so a run of strokes is checked once when drawing
+ * 		pauses. A history the latest pass already covers, such as after an undo or redo, is not checked again
+ *
+ */
+class HistoryCompactor {
+	// Marks a stroke not hidden by any later stroke
+	private static final int NOT_HIDDEN = Integer.MAX_VALUE;
+	// Time without a new request before a waiting pass starts
+	private static final long QUIET_MILLIS = 500;
+
+	// Result of a pass over a history, the strokes it was made from and the last stroke hiding each one
+	static final class pass {
+		private final StrokeVector strokes;
+		private final DoilyRenderer.Strategy strategy;
+		private final double sectors;
+		private final int canvasWidth;
+		private final int canvasHeight;
+		private final int width;
+		private final int height;
+		private final int[] hiddenBy;
+
+		pass(StrokeVector strokes, DoilyRenderer.Strategy strategy, double sectors, int canvasWidth, int canvasHeight,
+				int width, int height, int[] hiddenBy) {
+			this.strokes = strokes;
+			this.strategy = strategy;
+			this.sectors = sectors;
+			this.canvasWidth = canvasWidth;
+			this.canvasHeight = canvasHeight;
+			this.width = width;
+			this.height = height;
+			this.hiddenBy = hiddenBy;
+		}
+	}
+
+	private ExecutorService compactWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable task) {
+			Thread worker = new Thread(task, "history-compactor");
+			worker.setDaemon(true);
+			worker.setPriority(Thread.MIN_PRIORITY);
+			return worker;
+		}
+	});
+	// Pass waiting to run, and the result of the latest pass to finish
+	private AtomicReference<pass> requested = new AtomicReference<pass>();
+	private volatile pass latest = null;
+	private volatile long requestTime = 0;
+
+	// Strategy the display draws with, set from the render thread and read when a pass is asked for
+	private volatile DoilyRenderer.Strategy strategy = DoilyRenderer.Strategy.TRANSFORM;
+
+	// Renderer, surface and coverage of the worker, reused while the surface size is unchanged
+	private DoilyRenderer coverRenderer = new DoilyRenderer();
+	private BufferedImage coverImg = null;
+	private int[] coveredBy = new int[0];
+
+	public HistoryCompactor() {
+		coverRenderer.setParallel(false);
+	}
+
+	// Method sets the strategy the strokes are drawn with, passes made with another are no longer used
+	public void setStrategy(DoilyRenderer.Strategy strategy) {
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Method asks for the given strokes to be checked in the background, replacing any pass still waiting
+	 * @param strokes the drawn strokes, which are never changed so may be read by the worker
+	 * @param sectors the number of sectors the strokes are drawn with
+	 * @param canvasWidth the width of the canvas the strokes are stored in
+	 * @param canvasHeight the height of the canvas the strokes are stored in
+	 * @param width the width of the surface drawn on
+	 * @param height the height of the surface drawn on
+	 */
+	public void request(StrokeVector strokes, double sectors, int canvasWidth, int canvasHeight, int width, int height) {
+		if (isCovered(strokes, sectors, canvasWidth, canvasHeight, width, height)) {
+			return;
+		}
+		requestTime = System.currentTimeMillis();
+		if (requested.getAndSet(new pass(strokes, strategy, sectors, canvasWidth, canvasHeight, width, height, null)) != null) {
+			// Pass already waiting will pick up the new strokes
+			return;
+		}
+		compactWorker.execute(new Runnable() {
+			public void run() {
+				// Pass waits until requests have stopped arriving
+				long wait = requestTime + QUIET_MILLIS - System.currentTimeMillis();
+				while (wait > 0) {
+					try {
+						Thread.sleep(wait);
+					} catch (InterruptedException e) {
+						return;
+					}
+					wait = requestTime + QUIET_MILLIS - System.currentTimeMillis();
+				}
+				pass nextPass = requested.getAndSet(null);
+				if (nextPass != null) {
+					latest = compact(nextPass);
+				}
+			}
+		});
+	}
+
+	// Method checks whether the latest pass was made from the same surface and the strokes or strokes following them
+	private boolean isCovered(StrokeVector strokes, double sectors, int canvasWidth, int canvasHeight, int width, int height) {
+		pass current = latest;
+		if (current == null || current.strategy != strategy || current.sectors != sectors
+				|| current.canvasWidth != canvasWidth || current.canvasHeight != canvasHeight
+				|| current.width != width || current.height != height) {
+			return false;
+		}
+		int count = strokes.size();
+		return count <= current.strokes.size() && (count == 0 || strokes.get(count - 1) == current.strokes.get(count - 1));
+	}
+
+	/**
+	 * Method returns the strokes that can be skipped when they are redrawn
+	 * Only the result of a pass made from the same strokes, sectors and surface size is used, as strokes are
+	 * 		only ever added to the end of a history the strokes are the same if the last stroke they share is
+	 * @param history the drawn strokes of the history
+	 * @return the indexes of the strokes to skip, empty if no pass applies
+	 */
+	public BitSet getHidden(StrokeVector history, double sectors, int width, int height) {
+		BitSet hidden = new BitSet();
+		pass current = latest;
+		if (current == null || current.strategy != strategy || current.sectors != sectors || current.width != width
+				|| current.height != height) {
+			return hidden;
+		}
+		int shared = Math.min(history.size(), current.strokes.size());
+		if (shared == 0 || history.get(shared - 1) != current.strokes.get(shared - 1)) {
+			return hidden;
+		}
+		for (int i = 0; i < shared; i++) {
+			if (current.hiddenBy[i] < shared) {
+				hidden.set(i);
+			}
+		}
+		return hidden;
+	}
+
+	// Method finds the last stroke hiding each stroke of the pass, newest first
+	private pass compact(pass nextPass) {
+		coverImg = getSurface(coverImg, nextPass.width, nextPass.height);
+		coverRenderer.setStrategy(nextPass.strategy);
+		coverRenderer.fitView(nextPass.canvasWidth, nextPass.canvasHeight, nextPass.width, nextPass.height);
+
+		int[] coverPixels = ((DataBufferInt) coverImg.getRaster().getDataBuffer()).getData();
+
+		StrokeVector strokes = nextPass.strokes;
+		int[] hiddenBy = new int[strokes.size()];
+		// First later stroke to fully cover each pixel
+		if (coveredBy.length != nextPass.width * nextPass.height) {
+			coveredBy = new int[nextPass.width * nextPass.height];
+		}
+		Arrays.fill(coveredBy, NOT_HIDDEN);
+
+		for (int i = strokes.size() - 1; i >= 0; i--) {
+			// Stroke is drawn as an opaque pen so the eraser leaves its coverage in the alpha channel too
+			LineData stroke = strokes.get(i);
+			Rectangle touched = coverRenderer.render(coverImg, stroke.getPoints(), stroke.getPointCount(),
+					nextPass.sectors, stroke.getReflect(), false, stroke.getPenSize(), Color.WHITE);
+
+			int lastCover = -1;
+			for (int y = touched.y; y < touched.y + touched.height; y++) {
+				int row = y * nextPass.width;
+				for (int x = touched.x; x < touched.x + touched.width; x++) {
+					// Pixels touched are now first covered by this stroke
+					if ((coverPixels[row + x] >>> 24) != 0) {
+						lastCover = Math.max(lastCover, coveredBy[row + x]);
+						coveredBy[row + x] = i;
+					}
+				}
+			}
+			hiddenBy[i] = lastCover;
+
+			clearArea(coverImg, touched);
+		}
+		return new pass(strokes, nextPass.strategy, nextPass.sectors, nextPass.canvasWidth, nextPass.canvasHeight,
+				nextPass.width, nextPass.height, hiddenBy);
+	}
+
+	// Method returns a clear surface of the given size, reusing the given one if it matches
+	private static BufferedImage getSurface(BufferedImage surface, int width, int height) {
+		if (surface == null || surface.getWidth() != width || surface.getHeight() != height) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		return surface;
+	}
+
+	// Method clears the given area of a surface
+	private static void clearArea(BufferedImage surface, Rectangle area) {
+		if (area.isEmpty()) {
+			return;
+		}
+		Graphics2D clearObj = surface.createGraphics();
+		clearObj.setComposite(AlphaComposite.Clear);
+		clearObj.fill(area);
+		clearObj.dispose();
+	}
+}
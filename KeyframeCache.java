@@ -0,0 +1,113 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class stores snapshots of the drawing surface taken every set number of strokes
+ * The use case for this class is undo, where the nearest snapshot at or below the new stroke count
+ * 		is restored and only the strokes after it have to be redrawn
+ *
+ * Snapshots are held within a memory budget, when the budget is exceeded the oldest snapshots are
+ * 		removed first as undo works backwards from the most recent stroke
+ *
+ */
+class KeyframeCache {
+	// Snapshots are ordered by the number of strokes drawn when they were taken
+	private TreeMap<Integer, BufferedImage> keyframes = new TreeMap<Integer, BufferedImage>();
+
+	private int interval = 0;
+	private long memoryBudget = 0;
+	private long memoryUsed = 0;
+
+	/**
+	 * @param interval number of strokes between each snapshot
+	 * @param memoryBudget maximum number of bytes the stored snapshots may take up
+	 */
+	public KeyframeCache(int interval, long memoryBudget) {
+		this.interval = Math.max(1, interval);
+		this.memoryBudget = memoryBudget;
+	}
+
+	// Method checks if a snapshot should be taken for the given number of strokes
+	public boolean isDue(int strokeCount) {
+		return strokeCount > 0 && strokeCount % interval == 0 && !keyframes.containsKey(strokeCount);
+	}
+
+	/**
+	 * Method copies the given surface and stores it against the number of strokes it represents
+	 * @param strokeCount the number of strokes that have been drawn on the surface
+	 * @param surface the surface to be copied
+	 */
+	public void store(int strokeCount, BufferedImage surface) {
+		// Raster is copied so that later drawing does not modify the snapshot
+		WritableRaster copiedRaster = surface.copyData(null);
+		BufferedImage snapshot = new BufferedImage(surface.getColorModel(), copiedRaster,
+				surface.isAlphaPremultiplied(), null);
+
+		BufferedImage replaced = keyframes.put(strokeCount, snapshot);
+		if (replaced != null) {
+			memoryUsed -= sizeOf(replaced);
+		}
+		memoryUsed += sizeOf(snapshot);
+
+		// Oldest snapshots are removed until the cache fits inside the budget again
+		while (memoryUsed > memoryBudget && !keyframes.isEmpty()) {
+			memoryUsed -= sizeOf(keyframes.pollFirstEntry().getValue());
+		}
+	}
+
+	/**
+	 * Method copies the nearest snapshot at or below the given stroke count onto the surface
+	 * @param strokeCount the number of strokes the surface should represent
+	 * @param surface the surface to be overwritten
+	 * @return the number of strokes already drawn on the surface, so replay starts from this index
+	 */
+	public int restore(int strokeCount, BufferedImage surface) {
+		Map.Entry<Integer, BufferedImage> nearest = keyframes.floorEntry(strokeCount);
+
+		// If there is no snapshot the surface is left for the caller to clear and replay from the start
+		if (nearest == null) {
+			return 0;
+		}
+		surface.setData(nearest.getValue().getRaster());
+		return nearest.getKey();
+	}
+
+	// Method removes any snapshot taken after the given stroke count, used when those strokes are replaced
+	public void invalidateAfter(int strokeCount) {
+		while (!keyframes.isEmpty() && keyframes.lastKey() > strokeCount) {
+			memoryUsed -= sizeOf(keyframes.pollLastEntry().getValue());
+		}
+	}
+
+	// Method removes all snapshots, used when the surface is cleared or drawn with different settings
+	public void clear() {
+		keyframes.clear();
+		memoryUsed = 0;
+	}
+
+	// Method allows the number of strokes between snapshots to be updated
+	public void setInterval(int interval) {
+		this.interval = Math.max(1, interval);
+		clear();
+	}
+
+	// Method allows the memory budget to be updated, snapshots are removed if it is now exceeded
+	public void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		while (memoryUsed > memoryBudget && !keyframes.isEmpty()) {
+			memoryUsed -= sizeOf(keyframes.pollFirstEntry().getValue());
+		}
+	}
+
+	// Method returns the number of bytes currently held by snapshots
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	// Method estimates the size of a snapshot from its pixel count and bits per pixel
+	private long sizeOf(BufferedImage snapshot) {
+		return (long) snapshot.getWidth() * snapshot.getHeight() * snapshot.getColorModel().getPixelSize() / 8;
+	}
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts latencies into buckets so percentiles can be read at any time without keeping every value
+ * Values are held in microseconds, each power of two is split into four buckets so a percentile is
+ * 		within a quarter of its true value. Values below four microseconds each have their own bucket
+ *
+ * Buckets are atomic so values may be recorded and read from any thread
+ *
+ */
+class LatencyHistogram {
+	// Buckets per power of two, as a number of bits
+	private static final int SUB_BITS = 2;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	// Enough buckets for values up to 2^40 microseconds
+	private static final int BUCKET_COUNT = SUB_COUNT + 40 * SUB_COUNT;
+
+	private AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	// Method records a latency given in nanoseconds
+	public void record(long nanos) {
+		buckets.incrementAndGet(bucketFor(Math.max(0, nanos / 1000)));
+	}
+
+	/**
+	 * Method returns the latency below which the given fraction of recorded values fall
+	 * @param fraction between 0 and 1, 0.5 for the median
+	 * @return the upper bound of the bucket holding the percentile in microseconds, 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(BUCKET_COUNT - 1);
+	}
+
+	// Method returns the number of values recorded
+	public long getCount() {
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			total += buckets.get(i);
+		}
+		return total;
+	}
+
+	// Method removes every recorded value
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+	}
+
+	// Method returns the bucket for a value in microseconds
+	private static int bucketFor(long micros) {
+		if (micros < SUB_COUNT) {
+			return (int) micros;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+		return Math.min(BUCKET_COUNT - 1, SUB_COUNT + (exponent - SUB_BITS) * SUB_COUNT + sub);
+	}
+
+	// Method returns the largest value in microseconds held by the given bucket
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_COUNT) {
+			return bucket;
+		}
+		int exponent = (bucket - SUB_COUNT) / SUB_COUNT + SUB_BITS;
+		int sub = (bucket - SUB_COUNT) % SUB_COUNT;
+		return ((long) (SUB_COUNT + sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+}
@@ -0,0 +1,124 @@
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Shape view over points held as x, y pairs in a float array, the first point moves and
+ * 		every other point draws a line
+ * The view does not copy the points, so the same view can be pointed at a reused buffer
+ * 		and drawn again without creating a new shape
+ *
+ */
+class PolylineShape implements Shape {
+
+	// Iterator returns each point, transformed if a transform is given
+	class polylineIterator implements PathIterator {
+		private AffineTransform transform = null;
+		private int index = 0;
+
+		public polylineIterator(AffineTransform transform) {
+			this.transform = transform;
+		}
+
+		public int getWindingRule() {
+			return WIND_NON_ZERO;
+		}
+
+		public boolean isDone() {
+			return index >= pointCount;
+		}
+
+		public void next() {
+			index++;
+		}
+
+		public int currentSegment(float[] coords) {
+			coords[0] = points[index * 2];
+			coords[1] = points[index * 2 + 1];
+			if (transform != null) {
+				transform.transform(coords, 0, coords, 0, 1);
+			}
+			return (index == 0) ? SEG_MOVETO : SEG_LINETO;
+		}
+
+		public int currentSegment(double[] coords) {
+			coords[0] = points[index * 2];
+			coords[1] = points[index * 2 + 1];
+			if (transform != null) {
+				transform.transform(coords, 0, coords, 0, 1);
+			}
+			return (index == 0) ? SEG_MOVETO : SEG_LINETO;
+		}
+	}
+
+	private float[] points = null;
+	private int pointCount = 0;
+
+	public PolylineShape(float[] points, int pointCount) {
+		setPoints(points, pointCount);
+	}
+
+	// Method points the view at a new set of points
+	public void setPoints(float[] points, int pointCount) {
+		this.points = points;
+		this.pointCount = pointCount;
+	}
+
+	public Rectangle getBounds() {
+		return getBounds2D().getBounds();
+	}
+
+	public Rectangle2D getBounds2D() {
+		if (pointCount == 0) {
+			return new Rectangle2D.Float();
+		}
+		float minX = points[0];
+		float minY = points[1];
+		float maxX = minX;
+		float maxY = minY;
+		for (int i = 2; i < pointCount * 2; i += 2) {
+			minX = Math.min(minX, points[i]);
+			maxX = Math.max(maxX, points[i]);
+			minY = Math.min(minY, points[i + 1]);
+			maxY = Math.max(maxY, points[i + 1]);
+		}
+		return new Rectangle2D.Float(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	public boolean contains(double x, double y) {
+		return Path2D.contains(getPathIterator(null), x, y);
+	}
+
+	public boolean contains(Point2D p) {
+		return Path2D.contains(getPathIterator(null), p);
+	}
+
+	public boolean intersects(double x, double y, double w, double h) {
+		return Path2D.intersects(getPathIterator(null), x, y, w, h);
+	}
+
+	public boolean intersects(Rectangle2D r) {
+		return Path2D.intersects(getPathIterator(null), r);
+	}
+
+	public boolean contains(double x, double y, double w, double h) {
+		return Path2D.contains(getPathIterator(null), x, y, w, h);
+	}
+
+	public boolean contains(Rectangle2D r) {
+		return Path2D.contains(getPathIterator(null), r);
+	}
+
+	public PathIterator getPathIterator(AffineTransform at) {
+		return new polylineIterator(at);
+	}
+
+	public PathIterator getPathIterator(AffineTransform at, double flatness) {
+		// Polyline only holds straight lines so it is already flat
+		return new polylineIterator(at);
+	}
+}
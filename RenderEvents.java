@@ -0,0 +1,123 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This class holds the Java Flight Recorder events for the render pipeline, so a recording shows where
+ * 		time goes between a mouse event and the pixels on screen
+ * Each event is timed from begin to commit and is only recorded when enabled in the recording, e.g.
+ * 		java -XX:StartFlightRecording=filename=doily.jfr Main
+ *
+ */
+final class RenderEvents {
+
+	private RenderEvents() {
+	}
+
+	@Name("digitaldoilies.Stroke")
+	@Label("Stroke")
+	@Category({ "Digital Doilies", "Drawing" })
+	@Description("A stroke from mouse press to mouse release")
+	static class strokeEvent extends Event {
+		@Label("Sampled Points")
+		@Description("Points sampled from the mouse before the stroke was simplified")
+		int sampledPoints;
+
+		@Label("Points")
+		int points;
+
+		@Label("Sectors")
+		double sectors;
+	}
+
+	@Name("digitaldoilies.Draw")
+	@Label("Draw")
+	@Category({ "Digital Doilies", "Drawing" })
+	@Description("A single draw of a stroke or segment onto the surface for every sector")
+	static class drawEvent extends Event {
+		@Label("Points")
+		int points;
+
+		@Label("Sectors")
+		double sectors;
+
+		@Label("Strategy")
+		String strategy;
+
+		@Label("Pixels Touched")
+		long pixelsTouched;
+	}
+
+	@Name("digitaldoilies.Redraw")
+	@Label("Redraw")
+	@Category({ "Digital Doilies", "Drawing" })
+	@Description("A replay of the history onto the surface")
+	static class redrawEvent extends Event {
+		@Label("First Stroke")
+		int firstStroke;
+
+		@Label("Strokes")
+		int strokes;
+
+		@Label("From Archive")
+		boolean isFromArchive;
+
+		@Label("Skipped Strokes")
+		@Description("Strokes left out as later strokes completely cover them")
+		int skippedStrokes;
+
+		@Label("Cancelled")
+		@Description("Stopped before the last stroke as the surface was cleared for a newer drawing")
+		boolean isCancelled;
+	}
+
+	@Name("digitaldoilies.GallerySave")
+	@Label("Gallery Save")
+	@Category({ "Digital Doilies", "Gallery" })
+	@Description("A doily written to the gallery with its thumbnail")
+	static class gallerySaveEvent extends Event {
+		@Label("Entry")
+		int entry;
+
+		@Label("Strokes")
+		int strokes;
+
+		@Label("Saved")
+		boolean isSaved;
+	}
+
+	@Name("digitaldoilies.GalleryLoad")
+	@Label("Gallery Load")
+	@Category({ "Digital Doilies", "Gallery" })
+	@Description("A doily or its thumbnail read from the gallery")
+	static class galleryLoadEvent extends Event {
+		@Label("Entry")
+		int entry;
+
+		@Label("Thumbnail")
+		boolean isThumbnail;
+
+		@Label("Replayed")
+		boolean isReplayed;
+	}
+
+	@Name("digitaldoilies.Thumbnail")
+	@Label("Thumbnail Scale")
+	@Category({ "Digital Doilies", "Gallery" })
+	@Description("An image scaled down to a thumbnail")
+	static class thumbnailEvent extends Event {
+		@Label("Source Width")
+		int sourceWidth;
+
+		@Label("Source Height")
+		int sourceHeight;
+
+		@Label("Width")
+		int width;
+
+		@Label("Height")
+		int height;
+	}
+}
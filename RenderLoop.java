@@ -0,0 +1,121 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class runs the drawing of the display on a thread of its own so that a long replay never holds up
+ * 		the interface. Any thread may post commands, they are run one at a time in the order they were posted
+ *
+ * Commands are held on a lock-free queue, posting never blocks and wakes the render thread if it is parked.
+ * 		The render thread works through every command waiting and runs the frame task once the queue is empty,
+ * 		or once a frame interval has passed while it is still busy, so the interface sees the drawing at most
+ * 		once per frame however many commands are run
+ *
+ * A command or frame that fails is reported and the loop carries on with the next, so one failed drawing
+ * 		never stops the commands after it or leaves a thread waiting on them
+ *
+ */
+class RenderLoop {
+	private ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
+	private Runnable frameTask = null;
+	private long frameNanos = 0;
+	private long lastFrameTime = 0;
+	private volatile Thread renderThread = null;
+
+	/**
+	 * @param frameTask task run on the render thread to show what has been drawn
+	 * @param frameInterval the least time between frames while busy, in milliseconds
+	 */
+	public RenderLoop(Runnable frameTask, int frameInterval) {
+		this.frameTask = frameTask;
+		this.frameNanos = frameInterval * 1000000L;
+	}
+
+	// Method starts the render thread, commands posted before it starts are run once it does
+	public synchronized void start() {
+		if (renderThread != null) {
+			return;
+		}
+		Thread newThread = new Thread(new Runnable() {
+			public void run() {
+				runCommands();
+			}
+		}, "doily-render");
+		newThread.setDaemon(true);
+		renderThread = newThread;
+		newThread.start();
+	}
+
+	// Method adds a command to the end of the queue, it may be called from any thread
+	public void post(Runnable command) {
+		commands.offer(command);
+		Thread current = renderThread;
+		if (current != null) {
+			LockSupport.unpark(current);
+		}
+	}
+
+	// Method waits until every command posted before it has been run and shown, it returns at once if not started
+	public void await() {
+		if (renderThread == null || Thread.currentThread() == renderThread) {
+			return;
+		}
+		final CountDownLatch finished = new CountDownLatch(1);
+		post(new Runnable() {
+			public void run() {
+				try {
+					showFrame();
+				} finally {
+					finished.countDown();
+				}
+			}
+		});
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Method runs the frame task if a frame interval has passed since the last frame, for use by long commands
+	public void frameIfDue() {
+		if (System.nanoTime() - lastFrameTime >= frameNanos) {
+			showFrame();
+		}
+	}
+
+	// Method runs the frame task and records when it finished, even if it failed so it is not retried at once
+	private void showFrame() {
+		try {
+			frameTask.run();
+		} finally {
+			lastFrameTime = System.nanoTime();
+		}
+	}
+
+	// Method runs on the render thread, taking commands until the queue is empty then showing them and parking
+	private void runCommands() {
+		while (true) {
+			Runnable command = commands.poll();
+			/*
+			 *  Errors are caught as well as exceptions, a surface too large for the memory left fails with an
+			 *  	OutOfMemoryError which would otherwise end the thread and every drawing after it
+			 */
+			try {
+				if (command == null) {
+					showFrame();
+					// A post made after the poll unparks the thread so the park returns straight away
+					if (commands.isEmpty()) {
+						LockSupport.park(this);
+					}
+					continue;
+				}
+				command.run();
+				frameIfDue();
+			} catch (Throwable e) {
+				System.err.println("Drawing could not be completed: " + e);
+				e.printStackTrace();
+			}
+		}
+	}
+}
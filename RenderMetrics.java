@@ -0,0 +1,242 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class counts the work done by the display and gallery so that changes to the rendering can be checked
+ * Counters are atomic so they may be read from any thread while the display updates them
+ *
+ * Latencies of each kind of work are kept in histograms, frame latency is the time from the first draw
+ * 		waiting to be shown to the repaint that shows it. Once registered the counters are readable over JMX
+ *
+ */
+class RenderMetrics implements RenderMetricsMBean {
+	// Repaints the display would have asked for, one for every sector of every stroke drawn
+	private AtomicLong repaintsRequested = new AtomicLong();
+	// Repaints actually issued by the render loop, at most one for each frame
+	private AtomicLong repaintsPerformed = new AtomicLong();
+	// Times the sector lines were drawn onto their cached image, and times the cached image was painted
+	private AtomicLong guidesBuilt = new AtomicLong();
+	private AtomicLong guidesPainted = new AtomicLong();
+
+	// Strokes currently drawn on the display
+	private AtomicLong strokesInHistory = new AtomicLong();
+	// Line segments drawn counting every copy, and the count and time it was last sampled for a rate
+	private AtomicLong segmentsRendered = new AtomicLong();
+	private long sampledSegments = 0;
+	private long sampledTime = System.nanoTime();
+	private double segmentsPerSecond = 0;
+
+	private LatencyHistogram drawLatency = new LatencyHistogram();
+	private LatencyHistogram redrawLatency = new LatencyHistogram();
+	private LatencyHistogram frameLatency = new LatencyHistogram();
+	private LatencyHistogram gallerySaveLatency = new LatencyHistogram();
+	private LatencyHistogram galleryLoadLatency = new LatencyHistogram();
+	private LatencyHistogram thumbnailLatency = new LatencyHistogram();
+
+	// Method registers the counters with the platform MBean server under the given name
+	public void register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName("digitaldoilies:type=RenderMetrics,name=" + ObjectName.quote(name)));
+		} catch (JMException e) {
+			System.err.println("Render metrics could not be registered: " + e.getMessage());
+		}
+	}
+
+	// Method adds the given number of requested repaints
+	public void addRepaintsRequested(long count) {
+		repaintsRequested.addAndGet(count);
+	}
+	
+	// Method adds a single performed repaint
+	public void addRepaintPerformed() {
+		repaintsPerformed.incrementAndGet();
+	}
+	
+	// Method adds a single drawing of the sector lines onto their cached image
+	public void addGuideBuilt() {
+		guidesBuilt.incrementAndGet();
+	}
+	
+	// Method adds a single paint of the cached sector lines
+	public void addGuidePainted() {
+		guidesPainted.incrementAndGet();
+	}
+
+	// Method sets the number of strokes currently drawn
+	public void setStrokesInHistory(long count) {
+		strokesInHistory.set(count);
+	}
+
+	/**
+	 * Method records a single draw call
+	 * @param segments the number of line segments drawn counting every copy
+	 * @param nanos the time the draw took
+	 */
+	public void addDraw(long segments, long nanos) {
+		segmentsRendered.addAndGet(segments);
+		drawLatency.record(nanos);
+	}
+
+	// Method records the time a replay of the history took
+	public void addRedraw(long nanos) {
+		redrawLatency.record(nanos);
+	}
+
+	// Method records the time from a draw to the repaint which showed it
+	public void addFrame(long nanos) {
+		frameLatency.record(nanos);
+	}
+
+	// Method records the time a save to the gallery took
+	public void addGallerySave(long nanos) {
+		gallerySaveLatency.record(nanos);
+	}
+
+	// Method records the time a doily or thumbnail took to load from the gallery
+	public void addGalleryLoad(long nanos) {
+		galleryLoadLatency.record(nanos);
+	}
+
+	// Method records the time a thumbnail took to scale
+	public void addThumbnail(long nanos) {
+		thumbnailLatency.record(nanos);
+	}
+	
+	// Method returns the number of repaints requested
+	public long getRepaintsRequested() {
+		return repaintsRequested.get();
+	}
+	
+	// Method returns the number of repaints performed
+	public long getRepaintsPerformed() {
+		return repaintsPerformed.get();
+	}
+	
+	// Method returns the number of times the sector lines were drawn
+	public long getGuidesBuilt() {
+		return guidesBuilt.get();
+	}
+	
+	// Method returns the number of times the cached sector lines were painted, each would have drawn every line before
+	public long getGuidesPainted() {
+		return guidesPainted.get();
+	}
+
+	// Method returns the number of strokes currently drawn
+	public long getStrokesInHistory() {
+		return strokesInHistory.get();
+	}
+
+	// Method returns the segments drawn per second since the rate was last read, sampled at most once a second
+	public synchronized double getSegmentsPerSecond() {
+		long now = System.nanoTime();
+		if (now - sampledTime >= 1000000000L) {
+			long segments = segmentsRendered.get();
+			segmentsPerSecond = (segments - sampledSegments) * 1e9 / (now - sampledTime);
+			sampledSegments = segments;
+			sampledTime = now;
+		}
+		return segmentsPerSecond;
+	}
+
+	// Methods return the number of draw calls and their latency percentiles
+	public long getDrawCount() {
+		return drawLatency.getCount();
+	}
+
+	public long getDrawLatencyP50() {
+		return drawLatency.getPercentile(0.5);
+	}
+
+	public long getDrawLatencyP99() {
+		return drawLatency.getPercentile(0.99);
+	}
+
+	// Methods return the number of history replays and their latency percentiles
+	public long getRedrawCount() {
+		return redrawLatency.getCount();
+	}
+
+	public long getRedrawLatencyP50() {
+		return redrawLatency.getPercentile(0.5);
+	}
+
+	public long getRedrawLatencyP99() {
+		return redrawLatency.getPercentile(0.99);
+	}
+
+	// Methods return the percentiles of the time from a draw to the repaint which showed it
+	public long getFrameLatencyP50() {
+		return frameLatency.getPercentile(0.5);
+	}
+
+	public long getFrameLatencyP99() {
+		return frameLatency.getPercentile(0.99);
+	}
+
+	// Methods return the number of gallery saves and their latency percentiles
+	public long getGallerySaveCount() {
+		return gallerySaveLatency.getCount();
+	}
+
+	public long getGallerySaveLatencyP50() {
+		return gallerySaveLatency.getPercentile(0.5);
+	}
+
+	public long getGallerySaveLatencyP99() {
+		return gallerySaveLatency.getPercentile(0.99);
+	}
+
+	// Methods return the number of gallery loads and their latency percentiles
+	public long getGalleryLoadCount() {
+		return galleryLoadLatency.getCount();
+	}
+
+	public long getGalleryLoadLatencyP50() {
+		return galleryLoadLatency.getPercentile(0.5);
+	}
+
+	public long getGalleryLoadLatencyP99() {
+		return galleryLoadLatency.getPercentile(0.99);
+	}
+
+	// Methods return the percentiles of the time thumbnails took to scale
+	public long getThumbnailLatencyP50() {
+		return thumbnailLatency.getPercentile(0.5);
+	}
+
+	public long getThumbnailLatencyP99() {
+		return thumbnailLatency.getPercentile(0.99);
+	}
+	
+	// Method sets every counter back to zero
+	public void reset() {
+		repaintsRequested.set(0);
+		repaintsPerformed.set(0);
+		guidesBuilt.set(0);
+		guidesPainted.set(0);
+		segmentsRendered.set(0);
+		synchronized (this) {
+			sampledSegments = 0;
+			sampledTime = System.nanoTime();
+			segmentsPerSecond = 0;
+		}
+		drawLatency.reset();
+		redrawLatency.reset();
+		frameLatency.reset();
+		gallerySaveLatency.reset();
+		galleryLoadLatency.reset();
+		thumbnailLatency.reset();
+	}
+	
+	public String toString() {
+		return "repaints requested " + getRepaintsRequested() + ", performed " + getRepaintsPerformed()
+				+ ", guides built " + getGuidesBuilt() + ", painted " + getGuidesPainted()
+				+ ", draw p50 " + getDrawLatencyP50() + "us p99 " + getDrawLatencyP99() + "us"
+				+ ", frame p50 " + getFrameLatencyP50() + "us p99 " + getFrameLatencyP99() + "us";
+	}
+}
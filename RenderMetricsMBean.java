@@ -0,0 +1,39 @@
+/**
+ * This interface is the management view of RenderMetrics, it is shown by JMX tools such as JConsole
+ * 		under digitaldoilies:type=RenderMetrics
+ * Latencies are in microseconds and are the upper bound of the histogram bucket holding the percentile
+ *
+ */
+public interface RenderMetricsMBean {
+	long getRepaintsRequested();
+	long getRepaintsPerformed();
+	long getGuidesBuilt();
+	long getGuidesPainted();
+
+	long getStrokesInHistory();
+	double getSegmentsPerSecond();
+
+	long getDrawCount();
+	long getDrawLatencyP50();
+	long getDrawLatencyP99();
+
+	long getRedrawCount();
+	long getRedrawLatencyP50();
+	long getRedrawLatencyP99();
+
+	long getFrameLatencyP50();
+	long getFrameLatencyP99();
+
+	long getGallerySaveCount();
+	long getGallerySaveLatencyP50();
+	long getGallerySaveLatencyP99();
+
+	long getGalleryLoadCount();
+	long getGalleryLoadLatencyP50();
+	long getGalleryLoadLatencyP99();
+
+	long getThumbnailLatencyP50();
+	long getThumbnailLatencyP99();
+
+	void reset();
+}
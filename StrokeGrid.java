@@ -0,0 +1,159 @@
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This class divides the surface into a uniform grid of cells and records the cells each stroke touches
+ * 		across all of its copies, so an area of the surface can be redrawn from only the strokes inside it
+ * The area of each copy is the bounds of the stroke rotated and mirrored with it, padded by the pen and a
+ * 		pixel either side for rounding in the same way as the renderer pads the area it touches
+ *
+ * Strokes may be stored in a canvas of a different size to the surface, the canvas is then fitted to the
+ * 		surface as the renderer fits it and the area of each copy is moved onto the surface before it is padded
+ *
+ * Cells are worked out the first time a stroke is asked for and kept against the stroke until the sectors
+ * 		or the surface size change, strokes no longer held anywhere else are dropped with their cells
+ *
+ */
+class StrokeGrid {
+	// Width and height of a cell in pixels, a 650x650 surface has 21x21 cells
+	private static final int CELL_SIZE = 32;
+
+	private Map<LineData, BitSet> strokeCells = new WeakHashMap<LineData, BitSet>();
+	private SymmetryTable symmetry = null;
+	// Canvas the strokes are stored in, zero size uses the surface, and how it is fitted to the surface
+	private int canvasWidth = 0;
+	private int canvasHeight = 0;
+	private int surfaceWidth = 0;
+	private int surfaceHeight = 0;
+	private boolean isFitted = false;
+	private double scale = 1;
+	private double offsetX = 0;
+	private double offsetY = 0;
+	private int columns = 0;
+	private int rows = 0;
+	private float[] corners = new float[8];
+	private float[] copyCorners = new float[8];
+
+	/**
+	 * Method returns the cells touched by every copy of the stroke
+	 * @param stroke the stroke drawn
+	 * @param sectors number of sectors the stroke is repeated over
+	 * @param width width of the surface, the centre of rotation is its centre
+	 * @param height height of the surface
+	 * @return the cells as indexes of row * columns + column, which must not be changed
+	 */
+	public BitSet getCells(LineData stroke, double sectors, int width, int height) {
+		int strokeWidth = (canvasWidth == 0) ? width : canvasWidth;
+		int strokeHeight = (canvasHeight == 0) ? height : canvasHeight;
+		if (symmetry == null || !symmetry.matches(sectors, strokeWidth, strokeHeight) || width != surfaceWidth
+				|| height != surfaceHeight) {
+			symmetry = new SymmetryTable(sectors, strokeWidth, strokeHeight);
+			surfaceWidth = width;
+			surfaceHeight = height;
+			isFitted = (width != strokeWidth || height != strokeHeight);
+			scale = DoilyRenderer.fitScale(strokeWidth, strokeHeight, width, height);
+			offsetX = (width - strokeWidth * scale) / 2;
+			offsetY = (height - strokeHeight * scale) / 2;
+			columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+			rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+			strokeCells.clear();
+		}
+		BitSet cells = strokeCells.get(stroke);
+		if (cells == null) {
+			cells = findCells(stroke);
+			strokeCells.put(stroke, cells);
+		}
+		return cells;
+	}
+
+	/**
+	 * Method sets the canvas the strokes are stored in, each surface they are drawn on is fitted with it
+	 * @param canvasWidth width of the canvas, zero for strokes stored in the coordinates of the surface
+	 * @param canvasHeight height of the canvas
+	 */
+	public void setCanvas(int canvasWidth, int canvasHeight) {
+		this.canvasWidth = canvasWidth;
+		this.canvasHeight = canvasHeight;
+		// Cells are worked out again on the next call
+		symmetry = null;
+	}
+
+	// Method returns the cells overlapped by an area of the surface last given to getCells
+	public BitSet getCells(Rectangle area) {
+		BitSet cells = new BitSet(columns * rows);
+		int firstColumn = Math.max(0, area.x / CELL_SIZE);
+		int lastColumn = Math.min(columns - 1, (area.x + area.width) / CELL_SIZE);
+		int firstRow = Math.max(0, area.y / CELL_SIZE);
+		int lastRow = Math.min(rows - 1, (area.y + area.height) / CELL_SIZE);
+		for (int row = firstRow; row <= lastRow; row++) {
+			if (firstColumn <= lastColumn) {
+				cells.set(row * columns + firstColumn, row * columns + lastColumn + 1);
+			}
+		}
+		return cells;
+	}
+
+	// Method returns the area of the surface covered by the given cells, as one rectangle for each run along a row
+	public Shape getArea(BitSet cells) {
+		Path2D.Float area = new Path2D.Float();
+		for (int first = cells.nextSetBit(0); first >= 0; first = cells.nextSetBit(first)) {
+			// Run ends at the first clear cell or the end of the row
+			int rowEnd = (first / columns + 1) * columns;
+			int last = Math.min(cells.nextClearBit(first), rowEnd);
+			area.append(new Rectangle((first % columns) * CELL_SIZE, (first / columns) * CELL_SIZE,
+					(last - first) * CELL_SIZE, CELL_SIZE), false);
+			first = last;
+		}
+		return area;
+	}
+
+	// Method marks the cells overlapped by the area of each copy of the stroke
+	private BitSet findCells(LineData stroke) {
+		BitSet cells = new BitSet(columns * rows);
+		if (stroke.getPointCount() == 0) {
+			return cells;
+		}
+		Rectangle strokeArea = new PolylineShape(stroke.getPoints(), stroke.getPointCount()).getBounds();
+		corners[0] = strokeArea.x;
+		corners[1] = strokeArea.y;
+		corners[2] = strokeArea.x + strokeArea.width;
+		corners[3] = strokeArea.y;
+		corners[4] = strokeArea.x;
+		corners[5] = strokeArea.y + strokeArea.height;
+		corners[6] = strokeArea.x + strokeArea.width;
+		corners[7] = strokeArea.y + strokeArea.height;
+		// Padding matches the renderer, which pads by the pen as drawn on the surface
+		int padding = isFitted ? (int) Math.ceil(stroke.getPenSize() * scale / 2) + 2 : stroke.getPenSize() / 2 + 2;
+
+		int copyCount = symmetry.getCopyCount(stroke.getReflect());
+		for (int copy = 0; copy < copyCount; copy++) {
+			symmetry.transform(symmetry.getEntry(copy, stroke.getReflect()), corners, 4, copyCorners);
+			float minX = Math.min(Math.min(copyCorners[0], copyCorners[2]), Math.min(copyCorners[4], copyCorners[6]));
+			float maxX = Math.max(Math.max(copyCorners[0], copyCorners[2]), Math.max(copyCorners[4], copyCorners[6]));
+			float minY = Math.min(Math.min(copyCorners[1], copyCorners[3]), Math.min(copyCorners[5], copyCorners[7]));
+			float maxY = Math.max(Math.max(copyCorners[1], copyCorners[3]), Math.max(copyCorners[5], copyCorners[7]));
+			if (isFitted) {
+				minX = (float) (minX * scale + offsetX);
+				maxX = (float) (maxX * scale + offsetX);
+				minY = (float) (minY * scale + offsetY);
+				maxY = (float) (maxY * scale + offsetY);
+			}
+
+			// Area of the copy is limited to the surface before it is turned into cells
+			int firstColumn = Math.max(0, ((int) Math.floor(minX) - padding) / CELL_SIZE);
+			int lastColumn = Math.min(columns - 1, ((int) Math.ceil(maxX) + padding) / CELL_SIZE);
+			int firstRow = Math.max(0, ((int) Math.floor(minY) - padding) / CELL_SIZE);
+			int lastRow = Math.min(rows - 1, ((int) Math.ceil(maxY) + padding) / CELL_SIZE);
+			for (int row = firstRow; row <= lastRow; row++) {
+				if (firstColumn <= lastColumn) {
+					cells.set(row * columns + firstColumn, row * columns + lastColumn + 1);
+				}
+			}
+		}
+		return cells;
+	}
+}
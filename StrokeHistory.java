@@ -0,0 +1,94 @@
+/**
+ * This class stores the strokes drawn on the display in the order they were drawn
+ * The strokes are held in an immutable StrokeVector with an undo cursor. Strokes below the cursor are drawn,
+ * 		strokes at or above the cursor have been undone and are kept until they are redone or replaced
+ *
+ * Replay reads the strokes in place by index so nothing is copied or reversed to draw them in order
+ *
+ * As the vector is never changed, copying a history only shares the vector of its drawn strokes. A copy
+ * 		saved to the gallery or read by another thread is unaffected by strokes added to the original afterwards
+ *
+ */
+class StrokeHistory {
+	// Every stroke held including any that can be redone
+	private StrokeVector strokes = StrokeVector.EMPTY;
+	// Number of strokes currently drawn
+	private int cursor = 0;
+
+	// Method adds a stroke on top of the drawn strokes, any strokes that could be redone are discarded
+	public void push(LineData stroke) {
+		clearRedo();
+		strokes = strokes.append(stroke);
+		cursor++;
+	}
+
+	// Method moves the cursor back one stroke and returns the stroke undone, or null if there is none
+	public LineData undo() {
+		if (cursor == 0) {
+			return null;
+		}
+		cursor--;
+		return strokes.get(cursor);
+	}
+
+	// Method moves the cursor forward one stroke and returns the stroke redone, or null if there is none
+	public LineData redo() {
+		if (cursor == strokes.size()) {
+			return null;
+		}
+		cursor++;
+		return strokes.get(cursor - 1);
+	}
+
+	// Method discards the strokes that could be redone
+	public void clearRedo() {
+		strokes = strokes.take(cursor);
+	}
+
+	// Method discards every stroke
+	public void clear() {
+		strokes = StrokeVector.EMPTY;
+		cursor = 0;
+	}
+
+	// Method replaces the strokes with the drawn strokes of the given history, sharing them rather than copying
+	public void replaceWith(StrokeHistory other) {
+		strokes = other.snapshot();
+		cursor = strokes.size();
+	}
+
+	// Method returns an independent history holding only the drawn strokes, in constant time while nothing can be redone
+	public StrokeHistory copy() {
+		StrokeHistory copied = new StrokeHistory();
+		copied.replaceWith(this);
+		return copied;
+	}
+
+	// Method returns the drawn strokes as they are now, the result never changes so it may be read from any thread
+	public StrokeVector snapshot() {
+		return strokes.take(cursor);
+	}
+
+	// Method returns the drawn stroke at the given index
+	public LineData get(int index) {
+		if (index < 0 || index >= cursor) {
+			throw new IndexOutOfBoundsException("Stroke " + index + " of " + cursor);
+		}
+		return strokes.get(index);
+	}
+
+	// Method returns the number of strokes currently drawn
+	public int size() {
+		return cursor;
+	}
+
+	// Method returns whether there are no strokes drawn
+	public boolean isEmpty() {
+		return cursor == 0;
+	}
+
+	// Method returns whether there is a stroke that can be redone
+	public boolean canRedo() {
+		return cursor < strokes.size();
+	}
+}
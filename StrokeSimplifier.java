@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+/**
+ * This class removes the points of a stroke which lie close to the line through their neighbours
+ * The Ramer-Douglas-Peucker method is used, the point furthest from the line between the ends of a run is
+ * 		kept if it is further than the tolerance and the run is split there, otherwise every point between
+ * 		the ends is dropped. No kept line is further than the tolerance from any of the points it replaces
+ *
+ * Runs waiting to be split are held on an array rather than by recursion so long strokes can not overflow
+ * 		the stack
+ *
+ */
+final class StrokeSimplifier {
+
+	private StrokeSimplifier() {
+	}
+
+	/**
+	 * Method simplifies the points in place, the kept points are moved to the front in their original order
+	 * @param points the points as x, y pairs
+	 * @param pointCount the number of points used
+	 * @param tolerance the furthest in pixels a dropped point may be from the simplified line, 0 keeps every point
+	 * 		not exactly on the line
+	 * @return the number of points kept, the first and last points are always kept
+	 */
+	public static int simplify(float[] points, int pointCount, double tolerance) {
+		if (pointCount < 3 || tolerance < 0) {
+			return pointCount;
+		}
+		double toleranceSq = tolerance * tolerance;
+		boolean[] isKept = new boolean[pointCount];
+		isKept[0] = true;
+		isKept[pointCount - 1] = true;
+
+		// Each run waiting is held as its first and last index
+		int[] runs = new int[64];
+		int runCount = 0;
+		runs[runCount++] = 0;
+		runs[runCount++] = pointCount - 1;
+
+		while (runCount > 0) {
+			int last = runs[--runCount];
+			int first = runs[--runCount];
+
+			// Furthest point from the line between the ends of the run is found
+			int furthest = -1;
+			double furthestSq = toleranceSq;
+			for (int i = first + 1; i < last; i++) {
+				double distanceSq = distanceSq(points, i, first, last);
+				if (distanceSq > furthestSq) {
+					furthest = i;
+					furthestSq = distanceSq;
+				}
+			}
+			if (furthest == -1) {
+				continue;
+			}
+
+			// Furthest point is kept and the runs either side of it are checked in turn
+			isKept[furthest] = true;
+			if (runCount + 4 > runs.length) {
+				runs = Arrays.copyOf(runs, runs.length * 2);
+			}
+			if (furthest - first > 1) {
+				runs[runCount++] = first;
+				runs[runCount++] = furthest;
+			}
+			if (last - furthest > 1) {
+				runs[runCount++] = furthest;
+				runs[runCount++] = last;
+			}
+		}
+
+		// Kept points are moved down over the dropped points
+		int keptCount = 0;
+		for (int i = 0; i < pointCount; i++) {
+			if (isKept[i]) {
+				points[keptCount * 2] = points[i * 2];
+				points[keptCount * 2 + 1] = points[i * 2 + 1];
+				keptCount++;
+			}
+		}
+		return keptCount;
+	}
+
+	// Method returns the squared distance of a point from the segment between two others
+	private static double distanceSq(float[] points, int index, int first, int last) {
+		double x = points[index * 2];
+		double y = points[index * 2 + 1];
+		double startX = points[first * 2];
+		double startY = points[first * 2 + 1];
+		double dx = points[last * 2] - startX;
+		double dy = points[last * 2 + 1] - startY;
+		double lengthSq = dx * dx + dy * dy;
+
+		// Point is measured against the nearest point of the segment, or the start if the ends are the same
+		double along = 0;
+		if (lengthSq > 0) {
+			along = Math.max(0, Math.min(1, ((x - startX) * dx + (y - startY) * dy) / lengthSq));
+		}
+		double offsetX = x - (startX + along * dx);
+		double offsetY = y - (startY + along * dy);
+		return offsetX * offsetX + offsetY * offsetY;
+	}
+}
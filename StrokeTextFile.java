@@ -0,0 +1,95 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class reads and writes a stroke history as plain text so doilies can be made and rendered outside the window
+ * Each stroke is one line holding the pen and then the points, separated by spaces
+ * 		penSize red green blue reflect eraser x1 y1 x2 y2 ...
+ * 		reflect and eraser are 1 for on and 0 for off. Blank lines and lines starting with # are skipped
+ *
+ */
+class StrokeTextFile {
+	// Number of pen values written before the points on each line
+	private static final int PEN_FIELDS = 6;
+
+	private StrokeTextFile() {
+	}
+
+	/**
+	 * Method reads every stroke in the given file
+	 * @param file the file to read
+	 * @return the strokes in the order they were drawn
+	 * @throws IOException if the file cannot be read or a line is not a valid stroke
+	 */
+	public static StrokeHistory read(Path file) throws IOException {
+		StrokeHistory history = new StrokeHistory();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				try {
+					history.push(parseStroke(line));
+				} catch (IllegalArgumentException e) {
+					throw new IOException(file + " line " + lineNumber + ": " + e.getMessage(), e);
+				}
+			}
+		}
+		return history;
+	}
+
+	/**
+	 * Method writes the drawn strokes of the given history, replacing the file if it exists
+	 * @param file the file to write
+	 * @param history the strokes to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path file, StrokeHistory history) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < history.size(); i++) {
+				LineData stroke = history.get(i);
+				StringBuilder line = new StringBuilder();
+				line.append(stroke.getPenSize()).append(' ')
+						.append(stroke.getPenRed()).append(' ')
+						.append(stroke.getPenGreen()).append(' ')
+						.append(stroke.getPenBlue()).append(' ')
+						.append(stroke.getReflect() ? 1 : 0).append(' ')
+						.append(stroke.getEraser() ? 1 : 0);
+
+				float[] points = stroke.getPoints();
+				for (int p = 0; p < stroke.getPointCount() * 2; p++) {
+					line.append(' ').append(points[p]);
+				}
+				writer.write(line.toString());
+				writer.newLine();
+			}
+		}
+	}
+
+	// Method builds a stroke from one line of the file
+	private static LineData parseStroke(String line) {
+		String[] fields = line.split("\\s+");
+		if (fields.length < PEN_FIELDS + 2 || (fields.length - PEN_FIELDS) % 2 != 0) {
+			throw new IllegalArgumentException("expected " + PEN_FIELDS + " pen values and x y pairs");
+		}
+
+		LineData stroke = new LineData();
+		stroke.setPenSize(Integer.parseInt(fields[0]));
+		stroke.setPenColor(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]));
+		stroke.setReflect(!fields[4].equals("0"));
+		stroke.setEraser(!fields[5].equals("0"));
+		for (int i = PEN_FIELDS; i < fields.length; i += 2) {
+			stroke.addPoint(Float.parseFloat(fields[i]), Float.parseFloat(fields[i + 1]));
+		}
+		stroke.compact();
+		return stroke;
+	}
+}
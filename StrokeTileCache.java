@@ -0,0 +1,96 @@
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds the tile each stored stroke was last drawn onto by the stamp strategy inside a fixed
+ * 		memory budget, so a stroke drawn again is stamped without being stroked again
+ * Tiles are kept in the order they were last used, once the budget is passed the least recently used are
+ * 		removed until it fits again. Removed tiles are drawn again the next time their stroke is
+ *
+ * A tile holds the stroke in its own pen as placed on the target by the view, so the renderer clears the
+ * 		cache whenever the view changes. Strokes are never changed once stored so a tile never goes stale
+ * 		otherwise. The cache is only used from the thread of the renderer holding it
+ *
+ */
+class StrokeTileCache {
+	// Stroke drawn once onto a tile, with the area of the target the tile covers and the bounds of the stroke
+	static final class tile {
+		private final BufferedImage tileImg;
+		private final Rectangle tileArea;
+		private final Rectangle strokeArea;
+
+		tile(BufferedImage tileImg, Rectangle tileArea, Rectangle strokeArea) {
+			this.tileImg = tileImg;
+			this.tileArea = tileArea;
+			this.strokeArea = strokeArea;
+		}
+
+		public BufferedImage getImage() {
+			return tileImg;
+		}
+
+		public Rectangle getTileArea() {
+			return tileArea;
+		}
+
+		public Rectangle getStrokeArea() {
+			return strokeArea;
+		}
+	}
+
+	// Strokes are told apart by identity, a stroke stored twice is two strokes
+	private LinkedHashMap<LineData, tile> tiles = new LinkedHashMap<LineData, tile>(16, 0.75f, true);
+	private long memoryBudget = 0;
+	private long memoryUsed = 0;
+
+	/**
+	 * @param memoryBudget bytes of pixel data the tiles may use
+	 */
+	public StrokeTileCache(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	// Method returns the tile for the given stroke and marks it as recently used, null if it is not held
+	public tile get(LineData stroke) {
+		return tiles.get(stroke);
+	}
+
+	// Method stores the tile for the given stroke, removing the least recently used if over budget
+	public void put(LineData stroke, tile strokeTile) {
+		tile replaced = tiles.put(stroke, strokeTile);
+		if (replaced != null) {
+			memoryUsed -= sizeOf(replaced);
+		}
+		memoryUsed += sizeOf(strokeTile);
+
+		Iterator<Map.Entry<LineData, tile>> eldest = tiles.entrySet().iterator();
+		while (memoryUsed > memoryBudget && eldest.hasNext()) {
+			Map.Entry<LineData, tile> next = eldest.next();
+			// The tile just stored is kept even if it alone is over budget
+			if (next.getKey() == stroke) {
+				continue;
+			}
+			memoryUsed -= sizeOf(next.getValue());
+			eldest.remove();
+		}
+	}
+
+	// Method removes every tile, used when the view changes
+	public void clear() {
+		tiles.clear();
+		memoryUsed = 0;
+	}
+
+	// Method returns the bytes used by the tiles held
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	// Method returns the bytes of pixel data held by a tile, four per pixel
+	private static long sizeOf(tile strokeTile) {
+		return (long) strokeTile.tileImg.getWidth() * strokeTile.tileImg.getHeight() * 4;
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * This class is an immutable list of strokes which shares its structure with the lists it was made from
+ * Strokes are held in a tree of arrays 32 wide with the last (up to) 32 strokes held in a separate tail array,
+ * 		adding a stroke copies only the tail or the path from the root to the new leaf so every earlier
+ * 		version stays valid and unchanged
+ *
+ * A version may be read from any thread while newer versions are made from it, every array is filled
+ * 		before it is published through a final field and is never written again
+ *
+ */
+final class StrokeVector {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	// Node of the tree, leaves hold strokes and branches hold nodes
+	private static final class node {
+		private final Object[] children;
+
+		node(Object[] children) {
+			this.children = children;
+		}
+	}
+
+	private static final node EMPTY_NODE = new node(new Object[WIDTH]);
+
+	// The empty list all others are made from
+	public static final StrokeVector EMPTY = new StrokeVector(0, BITS, EMPTY_NODE, new Object[0]);
+
+	private final int size;
+	// Bits of the index used below the root, grows by BITS each time the tree gains a level
+	private final int shift;
+	private final node root;
+	private final Object[] tail;
+
+	private StrokeVector(int size, int shift, node root, Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	// Method returns the number of strokes in the list
+	public int size() {
+		return size;
+	}
+
+	// Method returns the stroke at the given index
+	public LineData get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Stroke " + index + " of " + size);
+		}
+		return (LineData) leafFor(index)[index & MASK];
+	}
+
+	// Method returns a list with the given stroke added to the end, this list is unchanged
+	public StrokeVector append(LineData stroke) {
+		// Room in the tail only needs the tail copied
+		if (size - tailOffset() < WIDTH) {
+			Object[] newTail = new Object[tail.length + 1];
+			System.arraycopy(tail, 0, newTail, 0, tail.length);
+			newTail[tail.length] = stroke;
+			return new StrokeVector(size + 1, shift, root, newTail);
+		}
+
+		// Full tail is pushed into the tree as a leaf, adding a level above the root if the tree is full
+		node tailNode = new node(tail);
+		node newRoot = null;
+		int newShift = shift;
+		if ((size >>> BITS) > (1 << shift)) {
+			Object[] children = new Object[WIDTH];
+			children[0] = root;
+			children[1] = newPath(shift, tailNode);
+			newRoot = new node(children);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tailNode);
+		}
+		return new StrokeVector(size + 1, newShift, newRoot, new Object[] { stroke });
+	}
+
+	// Method returns a list without its last stroke, this list is unchanged
+	public StrokeVector pop() {
+		if (size == 0) {
+			throw new IllegalStateException("No stroke to remove");
+		}
+		if (size == 1) {
+			return EMPTY;
+		}
+		// Strokes left in the tail only need the tail copied
+		if (size - tailOffset() > 1) {
+			Object[] newTail = new Object[tail.length - 1];
+			System.arraycopy(tail, 0, newTail, 0, newTail.length);
+			return new StrokeVector(size - 1, shift, root, newTail);
+		}
+
+		// Last leaf of the tree becomes the tail, removing the top level if it is left with one child
+		Object[] newTail = leafFor(size - 2);
+		node newRoot = popTail(shift, root);
+		int newShift = shift;
+		if (newRoot == null) {
+			newRoot = EMPTY_NODE;
+		}
+		if (shift > BITS && newRoot.children[1] == null) {
+			newRoot = (node) newRoot.children[0];
+			newShift -= BITS;
+		}
+		return new StrokeVector(size - 1, newShift, newRoot, newTail);
+	}
+
+	// Method returns a list of the first given number of strokes, this list is unchanged
+	public StrokeVector take(int count) {
+		if (count < 0 || count > size) {
+			throw new IndexOutOfBoundsException("Take " + count + " of " + size);
+		}
+		if (count == 0) {
+			return EMPTY;
+		}
+		StrokeVector taken = this;
+		while (taken.size > count) {
+			taken = taken.pop();
+		}
+		return taken;
+	}
+
+	// Method returns the index of the first stroke held in the tail
+	private int tailOffset() {
+		return (size < WIDTH) ? 0 : ((size - 1) >>> BITS) << BITS;
+	}
+
+	// Method returns the array holding the stroke at the given index
+	private Object[] leafFor(int index) {
+		if (index >= tailOffset()) {
+			return tail;
+		}
+		node current = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			current = (node) current.children[(index >>> level) & MASK];
+		}
+		return current.children;
+	}
+
+	// Method copies the path to the last leaf of the tree and adds the given leaf after it
+	private node pushTail(int level, node parent, node tailNode) {
+		int childIndex = ((size - 1) >>> level) & MASK;
+		Object[] children = parent.children.clone();
+		if (level == BITS) {
+			children[childIndex] = tailNode;
+		} else {
+			node child = (node) parent.children[childIndex];
+			children[childIndex] = (child == null) ? newPath(level - BITS, tailNode)
+					: pushTail(level - BITS, child, tailNode);
+		}
+		return new node(children);
+	}
+
+	// Method copies the path to the last leaf of the tree without that leaf, null if nothing is left on the path
+	private node popTail(int level, node parent) {
+		int childIndex = ((size - 2) >>> level) & MASK;
+		if (level > BITS) {
+			node child = popTail(level - BITS, (node) parent.children[childIndex]);
+			if (child == null && childIndex == 0) {
+				return null;
+			}
+			Object[] children = parent.children.clone();
+			children[childIndex] = child;
+			return new node(children);
+		}
+		if (childIndex == 0) {
+			return null;
+		}
+		Object[] children = parent.children.clone();
+		children[childIndex] = null;
+		return new node(children);
+	}
+
+	// Method makes a chain of nodes down to the given leaf
+	private static node newPath(int level, node leaf) {
+		if (level == 0) {
+			return leaf;
+		}
+		Object[] children = new Object[WIDTH];
+		children[0] = newPath(level - BITS, leaf);
+		return new node(children);
+	}
+}
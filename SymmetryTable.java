@@ -0,0 +1,102 @@
+import java.awt.geom.AffineTransform;
+
+/**
+ * This class holds every rotation and reflection used to repeat a stroke around the doily
+ * The matrices are computed once for a number of sectors and canvas size, then stored in a flat
+ * 		array of six values each so points can be transformed without creating transform objects
+ *
+ * Entries are stored in drawing order, the rotation for sector i is entry 2i and its reflection
+ * 		is entry 2i + 1
+ *
+ */
+class SymmetryTable {
+	// Matrix values are stored in the order returned by AffineTransform.getMatrix
+	private static final int MATRIX_SIZE = 6;
+
+	private double sectors = 0;
+	private int width = 0;
+	private int height = 0;
+	private int sectorCount = 0;
+	private double[] matrices = null;
+
+	/**
+	 * @param sectors number of sectors the doily is divided into
+	 * @param width width of the canvas, the centre of rotation is its centre
+	 * @param height height of the canvas
+	 */
+	public SymmetryTable(double sectors, int width, int height) {
+		this.sectors = sectors;
+		this.width = width;
+		this.height = height;
+
+		// The angle between repeats is calculated as a float for better redrawing
+		double theta = 360.d / sectors;
+		// A fractional last sector is still drawn, each sector has one rotation and one reflection entry
+		sectorCount = Math.max(0, (int) Math.ceil(sectors));
+		matrices = new double[sectorCount * 2 * MATRIX_SIZE];
+
+		double[] nextMatrix = new double[MATRIX_SIZE];
+		for (int i = 0; i < sectorCount; i++) {
+			// Rotation by i * theta about the centre of the canvas
+			AffineTransform linearTransform = AffineTransform.getRotateInstance(
+					Math.toRadians(theta * i),
+					width / 2,
+					height / 2
+			);
+			linearTransform.getMatrix(nextMatrix);
+			System.arraycopy(nextMatrix, 0, matrices, (i * 2) * MATRIX_SIZE, MATRIX_SIZE);
+
+			// Reflection mirrors the rotated copy across a sector line
+			linearTransform.translate(width, 0);
+			linearTransform.scale(-1, 1);
+			linearTransform.getMatrix(nextMatrix);
+			System.arraycopy(nextMatrix, 0, matrices, (i * 2 + 1) * MATRIX_SIZE, MATRIX_SIZE);
+		}
+	}
+
+	// Method checks if the table was built for the given sectors and canvas size
+	public boolean matches(double sectors, int width, int height) {
+		return this.sectors == sectors && this.width == width && this.height == height;
+	}
+
+	// Method returns the number of entries used to draw a stroke
+	public int getCopyCount(boolean isReflected) {
+		return isReflected ? sectorCount * 2 : sectorCount;
+	}
+
+	// Method returns the table entry for the given copy of a stroke
+	public int getEntry(int copy, boolean isReflected) {
+		return isReflected ? copy : copy * 2;
+	}
+
+	// Method sets the given transform to the matrix of the given entry so an existing transform can be reused
+	public void getTransform(int entry, AffineTransform dst) {
+		int offset = entry * MATRIX_SIZE;
+		dst.setTransform(matrices[offset], matrices[offset + 1], matrices[offset + 2],
+				matrices[offset + 3], matrices[offset + 4], matrices[offset + 5]);
+	}
+
+	/**
+	 * Method transforms points by the given entry into the destination buffer
+	 * @param entry the table entry to transform by
+	 * @param src the points as x, y pairs
+	 * @param pointCount the number of points to transform
+	 * @param dst the buffer the transformed points are written to, at least pointCount * 2 long
+	 */
+	public void transform(int entry, float[] src, int pointCount, float[] dst) {
+		int offset = entry * MATRIX_SIZE;
+		double m00 = matrices[offset];
+		double m10 = matrices[offset + 1];
+		double m01 = matrices[offset + 2];
+		double m11 = matrices[offset + 3];
+		double m02 = matrices[offset + 4];
+		double m12 = matrices[offset + 5];
+
+		for (int i = 0; i < pointCount * 2; i += 2) {
+			double x = src[i];
+			double y = src[i + 1];
+			dst[i] = (float) (m00 * x + m01 * y + m02);
+			dst[i + 1] = (float) (m10 * x + m11 * y + m12);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds the gallery thumbnails most recently shown inside a fixed memory budget
+ * Thumbnails are kept in the order they were last used, once the budget is passed the least recently
+ * 		used are removed until it fits again. Removed thumbnails are read back from disk when next shown
+ *
+ * The cache is only used from the interface thread
+ *
+ */
+class ThumbnailCache {
+	private LinkedHashMap<Integer, BufferedImage> thumbnails = new LinkedHashMap<Integer, BufferedImage>(16, 0.75f, true);
+	private long memoryBudget = 0;
+	private long memoryUsed = 0;
+
+	/**
+	 * @param memoryBudget bytes of pixel data the thumbnails may use
+	 */
+	public ThumbnailCache(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	// Method returns the thumbnail for the given entry and marks it as recently used, null if it is not held
+	public BufferedImage get(int id) {
+		return thumbnails.get(id);
+	}
+
+	// Method stores the thumbnail for the given entry, removing the least recently used if over budget
+	public void put(int id, BufferedImage thumbnail) {
+		BufferedImage replaced = thumbnails.put(id, thumbnail);
+		if (replaced != null) {
+			memoryUsed -= sizeOf(replaced);
+		}
+		memoryUsed += sizeOf(thumbnail);
+
+		Iterator<Map.Entry<Integer, BufferedImage>> eldest = thumbnails.entrySet().iterator();
+		while (memoryUsed > memoryBudget && eldest.hasNext()) {
+			Map.Entry<Integer, BufferedImage> next = eldest.next();
+			// The thumbnail just stored is kept even if it alone is over budget
+			if (next.getKey() == id) {
+				continue;
+			}
+			memoryUsed -= sizeOf(next.getValue());
+			eldest.remove();
+		}
+	}
+
+	// Method removes the thumbnail for the given entry
+	public void remove(int id) {
+		BufferedImage removed = thumbnails.remove(id);
+		if (removed != null) {
+			memoryUsed -= sizeOf(removed);
+		}
+	}
+
+	// Method returns the bytes used by the thumbnails held
+	public long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	// Method returns the number of thumbnails held
+	public int size() {
+		return thumbnails.size();
+	}
+
+	// Method returns the bytes of pixel data held by a thumbnail, four per pixel
+	private static long sizeOf(BufferedImage thumbnail) {
+		return (long) thumbnail.getWidth() * thumbnail.getHeight() * 4;
+	}
+}
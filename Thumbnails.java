@@ -0,0 +1,58 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+
+/**
+ * This class makes the small images of doilies shown in the gallery
+ * Images are halved with bilinear filtering until they are close to the size wanted then scaled once more,
+ * 		each step only averages neighbouring pixels so thin lines are kept without the cost of an area average
+ * The result is a new image of only the size wanted which holds no reference to the image it was made from
+ *
+ */
+class Thumbnails {
+
+	private Thumbnails() {
+	}
+
+	/**
+	 * Method scales an image down to the given size
+	 * @param source the image to scale, it is only read
+	 * @param width width of the thumbnail
+	 * @param height height of the thumbnail
+	 * @return a new image of the given size
+	 */
+	public static BufferedImage downscale(BufferedImage source, int width, int height) {
+		RenderEvents.thumbnailEvent scaleEvent = new RenderEvents.thumbnailEvent();
+		scaleEvent.begin();
+		BufferedImage current = source;
+		int currentWidth = source.getWidth();
+		int currentHeight = source.getHeight();
+
+		do {
+			// Each step halves the image until the next halving would pass the size wanted
+			currentWidth = Math.max(width, currentWidth / 2);
+			currentHeight = Math.max(height, currentHeight / 2);
+
+			BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D scaleObj = next.createGraphics();
+			scaleObj.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			scaleObj.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+			scaleObj.dispose();
+			current = next;
+		} while (currentWidth != width || currentHeight != height);
+
+		scaleEvent.sourceWidth = source.getWidth();
+		scaleEvent.sourceHeight = source.getHeight();
+		scaleEvent.width = width;
+		scaleEvent.height = height;
+		scaleEvent.commit();
+		return current;
+	}
+
+	// Method returns an independent copy of the given image, so it can be scaled while the original is drawn on
+	public static BufferedImage copy(BufferedImage source) {
+		WritableRaster copiedRaster = source.copyData(null);
+		return new BufferedImage(source.getColorModel(), copiedRaster, source.isAlphaPremultiplied(), null);
+	}
+}
@@ -0,0 +1,405 @@
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * This class exports a doily at any size without ever holding the whole image, so a doily can be printed
+ * 		at sizes such as 16384x16384 which would not fit in memory as a single image
+ *
+ * The image is split into tiles. Each tile is drawn onto its own small image with the renderer view
+ * 		set to the part of the canvas under the tile, only the strokes whose copies reach the tile are drawn.
+ * 		No clip is set as the rasteriser places some pixels differently once one is, the edges of the tile
+ * 		image limit the drawing instead
+ *
+ * The image writer asks for the image a part at a time in order, tiles are drawn on worker threads a few
+ * 		ahead of the part asked for and dropped once the writer has moved past them. A TIFF is written a tile at
+ * 		a time so holds only the tiles in flight. A PNG is written a row at a time so holds a row of tiles, its
+ * 		tiles are made a short strip high whatever the tile size so the row held stays small at any width
+ *
+ * Usage: TiledExporter input output.png|output.tiff [--size pixels] [--tile pixels] [--sectors count] [--threads count]
+ *
+ */
+public class TiledExporter {
+	// Width and height of a tile, the TIFF writer needs a multiple of 16
+	public static final int DEFAULT_TILE_SIZE = 1024;
+	// Height of the tiles of a PNG, a row of them is 32MB at 65536 pixels wide
+	public static final int STRIP_HEIGHT = 128;
+
+	private static final String ARCHIVE_EXTENSION = ".doily";
+
+	// Each worker keeps its own renderer as the renderer reuses its buffers between strokes
+	private static final ThreadLocal<DoilyRenderer> renderers = new ThreadLocal<DoilyRenderer>() {
+		protected DoilyRenderer initialValue() {
+			DoilyRenderer renderer = new DoilyRenderer();
+			// Tiles are already drawn in parallel so each renderer stays on its own thread
+			renderer.setParallel(false);
+			renderer.setStrategy(DoilyRenderer.Strategy.TRANSFORM);
+			return renderer;
+		}
+	};
+
+	/**
+	 * Image whose tiles are drawn when the writer first asks for them. Only the writer thread asks for parts
+	 * 		of the image, the tiles themselves are drawn by the workers
+	 */
+	static class tiledImage implements RenderedImage {
+		private final List<LineData> strokes;
+		private final List<BitSet> strokeCells;
+		private final StrokeGrid strokeGrid;
+		private final double sectors;
+		private final int canvasWidth;
+		private final int canvasHeight;
+		private final int size;
+		private final int tileWidth;
+		private final int tileHeight;
+		private final int columns;
+		private final int rows;
+		private final double scale;
+		private final ExecutorService tileWorkers;
+		private final int prefetch;
+		private final ColorModel colorModel = ColorModel.getRGBdefault();
+		// Tiles drawn or being drawn by row * columns + column, in the order the writer reaches them
+		private final TreeMap<Integer, Future<BufferedImage>> tiles = new TreeMap<Integer, Future<BufferedImage>>();
+
+		tiledImage(StrokeHistory history, int canvasWidth, int canvasHeight, double sectors, int size, int tileWidth,
+				int tileHeight, ExecutorService tileWorkers, int prefetch) {
+			this.sectors = sectors;
+			this.canvasWidth = canvasWidth;
+			this.canvasHeight = canvasHeight;
+			this.size = size;
+			this.tileWidth = tileWidth;
+			this.tileHeight = tileHeight;
+			this.columns = (size + tileWidth - 1) / tileWidth;
+			this.rows = (size + tileHeight - 1) / tileHeight;
+			this.scale = (double) size / Math.max(canvasWidth, canvasHeight);
+			this.tileWorkers = tileWorkers;
+			this.prefetch = prefetch;
+
+			// Cells are found once on this thread as the grid is not safe to share, the workers only read them
+			strokes = new ArrayList<LineData>(history.size());
+			strokeCells = new ArrayList<BitSet>(history.size());
+			strokeGrid = new StrokeGrid();
+			for (int i = 0; i < history.size(); i++) {
+				strokes.add(history.get(i));
+				strokeCells.add(strokeGrid.getCells(history.get(i), sectors, canvasWidth, canvasHeight));
+			}
+		}
+
+		// Method draws a single tile, this runs on a worker
+		private BufferedImage drawTile(int column, int row, BitSet tileCells) {
+			int left = column * tileWidth;
+			int top = row * tileHeight;
+			BufferedImage tileImg = new BufferedImage(Math.min(tileWidth, size - left), Math.min(tileHeight, size - top),
+					BufferedImage.TYPE_INT_ARGB);
+			DoilyRenderer renderer = renderers.get();
+			// Canvas is centred on the image as a whole, then moved so the tile sits at the origin
+			renderer.setView(canvasWidth, canvasHeight, scale, (size - canvasWidth * scale) / 2 - left,
+					(size - canvasHeight * scale) / 2 - top);
+			for (int i = 0; i < strokes.size(); i++) {
+				if (strokeCells.get(i).intersects(tileCells)) {
+					renderer.render(tileImg, strokes.get(i), sectors);
+				}
+			}
+			renderer.clearView();
+			return tileImg;
+		}
+
+		// Method starts drawing the given tile if it is not already drawn or being drawn
+		private void requestTile(final int index) {
+			if (index >= columns * rows || tiles.containsKey(index)) {
+				return;
+			}
+			final int column = index % columns;
+			final int row = index / columns;
+			// Area of the canvas under the tile, padded by a pixel for rounding
+			double offsetX = (size - canvasWidth * scale) / 2;
+			double offsetY = (size - canvasHeight * scale) / 2;
+			int canvasLeft = (int) Math.floor((column * tileWidth - offsetX) / scale) - 1;
+			int canvasTop = (int) Math.floor((row * tileHeight - offsetY) / scale) - 1;
+			int canvasWidthSpan = (int) Math.ceil(tileWidth / scale) + 2;
+			int canvasHeightSpan = (int) Math.ceil(tileHeight / scale) + 2;
+			final BitSet tileCells = strokeGrid.getCells(new Rectangle(canvasLeft, canvasTop, canvasWidthSpan,
+					canvasHeightSpan));
+
+			tiles.put(index, tileWorkers.submit(new Callable<BufferedImage>() {
+				public BufferedImage call() {
+					return drawTile(column, row, tileCells);
+				}
+			}));
+		}
+
+		/**
+		 * Method returns the given part of the image, drawing the tiles under it and starting the tiles after it
+		 * Tiles before the first tile under the part are dropped, as the writer never goes back
+		 */
+		public synchronized Raster getData(Rectangle area) {
+			Rectangle bounds = area.intersection(new Rectangle(0, 0, size, size));
+			WritableRaster part = colorModel.createCompatibleWritableRaster(Math.max(1, area.width), Math.max(1, area.height))
+					.createWritableTranslatedChild(area.x, area.y);
+			if (bounds.isEmpty()) {
+				return part;
+			}
+			int firstColumn = bounds.x / tileWidth;
+			int lastColumn = (bounds.x + bounds.width - 1) / tileWidth;
+			int firstRow = bounds.y / tileHeight;
+			int lastRow = (bounds.y + bounds.height - 1) / tileHeight;
+			int firstIndex = firstRow * columns + firstColumn;
+
+			tiles.headMap(firstIndex).clear();
+			for (int index = firstIndex; index <= lastRow * columns + lastColumn + prefetch; index++) {
+				requestTile(index);
+			}
+
+			for (int row = firstRow; row <= lastRow; row++) {
+				for (int column = firstColumn; column <= lastColumn; column++) {
+					BufferedImage tileImg = waitForTile(row * columns + column);
+					part.setRect(tileImg.getRaster().createTranslatedChild(column * tileWidth, row * tileHeight));
+				}
+			}
+			return part;
+		}
+
+		// Method waits for the given tile to be drawn
+		private BufferedImage waitForTile(int index) {
+			try {
+				return tiles.get(index).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Export was interrupted");
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Tile " + index + " could not be drawn: " + e.getCause(), e.getCause());
+			}
+		}
+
+		public Raster getData() {
+			return getData(new Rectangle(0, 0, size, size));
+		}
+
+		public Raster getTile(int column, int row) {
+			return getData(new Rectangle(column * tileWidth, row * tileHeight, tileWidth, tileHeight));
+		}
+
+		public WritableRaster copyData(WritableRaster raster) {
+			if (raster == null) {
+				raster = colorModel.createCompatibleWritableRaster(size, size);
+			}
+			raster.setRect(getData(raster.getBounds()));
+			return raster;
+		}
+
+		public Vector<RenderedImage> getSources() {
+			return null;
+		}
+
+		public Object getProperty(String name) {
+			return Image.UndefinedProperty;
+		}
+
+		public String[] getPropertyNames() {
+			return null;
+		}
+
+		public ColorModel getColorModel() {
+			return colorModel;
+		}
+
+		public SampleModel getSampleModel() {
+			return colorModel.createCompatibleSampleModel(tileWidth, tileHeight);
+		}
+
+		public int getWidth() {
+			return size;
+		}
+
+		public int getHeight() {
+			return size;
+		}
+
+		public int getMinX() {
+			return 0;
+		}
+
+		public int getMinY() {
+			return 0;
+		}
+
+		public int getNumXTiles() {
+			return columns;
+		}
+
+		public int getNumYTiles() {
+			return rows;
+		}
+
+		public int getMinTileX() {
+			return 0;
+		}
+
+		public int getMinTileY() {
+			return 0;
+		}
+
+		public int getTileWidth() {
+			return tileWidth;
+		}
+
+		public int getTileHeight() {
+			return tileHeight;
+		}
+
+		public int getTileGridXOffset() {
+			return 0;
+		}
+
+		public int getTileGridYOffset() {
+			return 0;
+		}
+	}
+
+	/**
+	 * Method writes every drawn stroke of a history to an image file a tile at a time
+	 * @param history the strokes to draw, in the coordinates of the canvas they were drawn on
+	 * @param canvasWidth width of the canvas, the doily is scaled so its larger side fills the image
+	 * @param canvasHeight height of the canvas
+	 * @param sectors the number of sectors to repeat each stroke in
+	 * @param size width and height of the image in pixels
+	 * @param tileSize width and height of a tile, a multiple of 16, the tiles of a PNG are a strip high instead
+	 * @param threads number of tiles drawn at once
+	 * @param output file written, as a TIFF if it ends with .tif or .tiff and as a PNG otherwise
+	 * @throws IOException if the file could not be written or a tile could not be drawn
+	 */
+	public static void export(StrokeHistory history, int canvasWidth, int canvasHeight, double sectors, int size,
+			int tileSize, int threads, Path output) throws IOException {
+		String name = output.getFileName().toString().toLowerCase();
+		boolean isTiff = name.endsWith(".tif") || name.endsWith(".tiff");
+		ImageWriter writer = ImageIO.getImageWritersByFormatName(isTiff ? "tiff" : "png").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		int tileHeight = Math.min(tileSize, STRIP_HEIGHT);
+		if (isTiff) {
+			tileHeight = tileSize;
+			// Tiles of the file match the drawn tiles so each is drawn, written and dropped in turn
+			param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setTiling(tileSize, tileSize, 0, 0);
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionType("Deflate");
+		}
+
+		ExecutorService tileWorkers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable task) {
+				Thread worker = new Thread(task, "tile-worker");
+				worker.setDaemon(true);
+				return worker;
+			}
+		});
+		tiledImage doily = new tiledImage(history, canvasWidth, canvasHeight, sectors, size, tileSize, tileHeight,
+				tileWorkers, threads);
+		Files.deleteIfExists(output);
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(output.toFile())) {
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(doily, null, null), param);
+		} catch (IllegalStateException e) {
+			throw new IOException(e.getMessage(), e.getCause());
+		} finally {
+			writer.dispose();
+			tileWorkers.shutdownNow();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		// Set before any AWT class is loaded so no display is needed
+		System.setProperty("java.awt.headless", "true");
+
+		if (args.length < 2) {
+			printUsage();
+			return;
+		}
+		Path input = Paths.get(args[0]);
+		Path output = Paths.get(args[1]);
+		int size = BatchRenderer.DESIGN_SIZE * 4;
+		int tileSize = DEFAULT_TILE_SIZE;
+		double sectors = 30;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for (int i = 2; i < args.length; i++) {
+			if (i + 1 == args.length) {
+				printUsage();
+				return;
+			}
+			switch (args[i]) {
+				case "--size":
+					size = Integer.parseInt(args[++i]);
+					break;
+				case "--tile":
+					tileSize = Integer.parseInt(args[++i]);
+					break;
+				case "--sectors":
+					sectors = Double.parseDouble(args[++i]);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				default:
+					printUsage();
+					return;
+			}
+		}
+		if (size <= 0 || tileSize <= 0 || tileSize % 16 != 0 || sectors < 1 || threads <= 0) {
+			printUsage();
+			return;
+		}
+
+		// Strokes of an archive are read into a history so each tile can pick out the strokes it needs
+		StrokeHistory history = null;
+		int canvasWidth = BatchRenderer.DESIGN_SIZE;
+		int canvasHeight = BatchRenderer.DESIGN_SIZE;
+		if (input.getFileName().toString().endsWith(ARCHIVE_EXTENSION)) {
+			DoilyArchive archive = DoilyArchive.open(input);
+			history = archive.toHistory();
+			canvasWidth = archive.getCanvasWidth();
+			canvasHeight = archive.getCanvasHeight();
+		} else {
+			history = StrokeTextFile.read(input);
+		}
+
+		long start = System.nanoTime();
+		try {
+			export(history, canvasWidth, canvasHeight, sectors, size, tileSize, threads, output);
+		} catch (IOException e) {
+			System.err.println(output.getFileName() + " could not be exported: " + e.getMessage());
+			return;
+		}
+		System.out.printf("%s %dx%d in %.2f s with %d threads%n", output.getFileName(), size, size,
+				(System.nanoTime() - start) / 1e9, threads);
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: TiledExporter input output.png|output.tiff [--size pixels] [--tile pixels]"
+				+ " [--sectors count] [--threads count]");
+		System.err.println("Exports a stroke file or archive as a single large image, tiles must be a multiple of 16 pixels");
+	}
+}
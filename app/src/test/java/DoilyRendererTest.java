@@ -0,0 +1,163 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class checks that the ways DoilyRenderer can draw a stroke give the same surface
+ * The parallel mode is given its own pool of several workers, the common pool has a single worker on a one
+ * 		core machine and the parallel mode would never be used
+ *
+ * Stamped copies are resampled so they are only checked to draw the same colors as stroked copies with edges
+ * 		moved by at most two pixels, every other pairing is checked to be pixel identical
+ *
+ */
+class DoilyRendererTest {
+	private static final int SIZE = 650;
+	private static final int STROKES = 120;
+	// Enough sectors for the copies of every stroke to be split between the workers
+	private static final double SECTORS = 24;
+	// Furthest an edge pixel of a stamped copy may be from the stroked copy, and the reverse
+	private static final int EDGE_DISTANCE = 2;
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	static void startPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	static void stopPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	void parallelMatchesSerial() {
+		List<LineData> strokes = makeStrokes(new Random(1));
+		for (int targetSize : new int[] { SIZE, 1000 }) {
+			DoilyRenderer serial = makeRenderer(DoilyRenderer.Strategy.TRANSFORM, targetSize);
+			serial.setParallel(false);
+			DoilyRenderer parallel = makeRenderer(DoilyRenderer.Strategy.TRANSFORM, targetSize);
+			parallel.setPool(pool);
+
+			assertArrayEquals(drawAll(serial, strokes, targetSize), drawAll(parallel, strokes, targetSize));
+		}
+	}
+
+	@Test
+	void cachedStampMatchesFreshStamp() {
+		List<LineData> strokes = makeStrokes(new Random(2));
+		// Second replay stamps the tiles kept from the first
+		DoilyRenderer cached = makeRenderer(DoilyRenderer.Strategy.STAMP, SIZE);
+		drawAll(cached, strokes, SIZE);
+		int[] replayed = drawAll(cached, strokes, SIZE);
+
+		assertArrayEquals(drawAll(makeRenderer(DoilyRenderer.Strategy.STAMP, SIZE), strokes, SIZE), replayed);
+	}
+
+	@Test
+	void autoChoosesTheSameWayEachTime() {
+		List<LineData> strokes = makeStrokes(new Random(3));
+		DoilyRenderer auto = makeRenderer(DoilyRenderer.Strategy.AUTO, SIZE);
+		BufferedImage target = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		List<DoilyRenderer.Strategy> chosen = new ArrayList<DoilyRenderer.Strategy>();
+		for (LineData stroke : strokes) {
+			auto.render(target, stroke, SECTORS);
+			chosen.add(auto.getLastStrategy());
+		}
+		for (int i = 0; i < strokes.size(); i++) {
+			auto.render(target, strokes.get(i), SECTORS);
+			assertEquals(chosen.get(i), auto.getLastStrategy());
+		}
+		assertTrue(chosen.contains(DoilyRenderer.Strategy.STAMP) && chosen.contains(DoilyRenderer.Strategy.TRANSFORM));
+	}
+
+	@Test
+	void stampCoversTheSamePixelsAsTransform() {
+		Random random = new Random(4);
+		DoilyRenderer stamp = makeRenderer(DoilyRenderer.Strategy.STAMP, SIZE);
+		DoilyRenderer transform = makeRenderer(DoilyRenderer.Strategy.TRANSFORM, SIZE);
+		transform.setParallel(false);
+		// Each stroke is drawn alone so one stroke cannot hide the edge of another
+		for (LineData stroke : makeStrokes(random)) {
+			int[] stamped = drawAll(stamp, List.of(stroke), SIZE);
+			int[] stroked = drawAll(transform, List.of(stroke), SIZE);
+			assertNearEdge(stamped, stroked);
+			assertNearEdge(stroked, stamped);
+		}
+	}
+
+	// Method returns a renderer using the given strategy fitted onto a square target of the given size
+	private static DoilyRenderer makeRenderer(DoilyRenderer.Strategy strategy, int targetSize) {
+		DoilyRenderer renderer = new DoilyRenderer();
+		renderer.setStrategy(strategy);
+		renderer.fitView(SIZE, SIZE, targetSize, targetSize);
+		return renderer;
+	}
+
+	// Method draws the strokes in order onto a clear target and returns its pixels
+	private static int[] drawAll(DoilyRenderer renderer, List<LineData> strokes, int targetSize) {
+		BufferedImage target = new BufferedImage(targetSize, targetSize, BufferedImage.TYPE_INT_ARGB);
+		for (LineData stroke : strokes) {
+			renderer.render(target, stroke, SECTORS);
+		}
+		return target.getRGB(0, 0, targetSize, targetSize, null, 0, targetSize);
+	}
+
+	// Method checks that every pixel the first drew is drawn in the same color by the second, or is near one it drew
+	private static void assertNearEdge(int[] first, int[] second) {
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				int pixel = first[y * SIZE + x];
+				if ((pixel >>> 24) == 0 || pixel == second[y * SIZE + x]) {
+					continue;
+				}
+				boolean isNear = false;
+				for (int nearY = Math.max(0, y - EDGE_DISTANCE); nearY <= Math.min(SIZE - 1, y + EDGE_DISTANCE) && !isNear; nearY++) {
+					for (int nearX = Math.max(0, x - EDGE_DISTANCE); nearX <= Math.min(SIZE - 1, x + EDGE_DISTANCE); nearX++) {
+						if (second[nearY * SIZE + nearX] == pixel) {
+							isNear = true;
+							break;
+						}
+					}
+				}
+				assertTrue(isNear, "Pixel " + x + ", " + y + " is not near an edge of the other strategy");
+			}
+		}
+	}
+
+	// Method makes random strokes of a range of pens, lengths and colors, some erasing and some reflected
+	private static List<LineData> makeStrokes(Random random) {
+		List<LineData> strokes = new ArrayList<LineData>();
+		for (int i = 0; i < STROKES; i++) {
+			LineData stroke = new LineData();
+			float x = 100 + random.nextInt(450);
+			float y = 100 + random.nextInt(450);
+			int pointCount = 2 + random.nextInt(60);
+			for (int j = 0; j < pointCount; j++) {
+				x += random.nextInt(21) - 10;
+				y += random.nextInt(21) - 10;
+				stroke.addPoint(x, y);
+			}
+			stroke.compact();
+			stroke.setPenSize(1 + random.nextInt(24));
+			stroke.setEraser(random.nextInt(6) == 0);
+			stroke.setReflect(random.nextBoolean());
+			Color penColor = new Color(random.nextInt(0xffffff));
+			stroke.setPenColor(penColor.getRed(), penColor.getGreen(), penColor.getBlue());
+			strokes.add(stroke);
+		}
+		return strokes;
+	}
+}
@@ -0,0 +1,150 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class checks StrokeVector and StrokeHistory against an ArrayList over long runs of random operations
+ * Runs are long enough for the vector to gain and lose several levels of its tree, and every earlier version
+ * 		of a vector is checked again at the end to show that it was never changed
+ *
+ */
+class StrokeHistoryTest {
+	private static final int OPERATIONS = 20000;
+	private static final long[] SEEDS = { 1, 2, 3, 42, 2024 };
+
+	@Test
+	void vectorMatchesList() {
+		for (long seed : SEEDS) {
+			Random random = new Random(seed);
+			StrokeVector vector = StrokeVector.EMPTY;
+			List<LineData> expected = new ArrayList<LineData>();
+			// Versions kept with a copy of what they held when made
+			List<StrokeVector> versions = new ArrayList<StrokeVector>();
+			List<List<LineData>> versionStrokes = new ArrayList<List<LineData>>();
+
+			for (int i = 0; i < OPERATIONS; i++) {
+				// Appends outweigh pops so the vector grows past two levels, taking back a run is rare
+				int operation = random.nextInt(1000);
+				if (operation < 700 || expected.isEmpty()) {
+					LineData stroke = new LineData();
+					vector = vector.append(stroke);
+					expected.add(stroke);
+				} else if (operation < 999) {
+					vector = vector.pop();
+					expected.remove(expected.size() - 1);
+				} else {
+					int count = random.nextInt(expected.size() + 1);
+					vector = vector.take(count);
+					expected.subList(count, expected.size()).clear();
+				}
+				assertMatches(expected, vector);
+
+				if (random.nextInt(100) == 0) {
+					versions.add(vector);
+					versionStrokes.add(new ArrayList<LineData>(expected));
+				}
+			}
+
+			for (int i = 0; i < versions.size(); i++) {
+				assertMatches(versionStrokes.get(i), versions.get(i));
+			}
+		}
+	}
+
+	@Test
+	void historyMatchesList() {
+		for (long seed : SEEDS) {
+			Random random = new Random(seed);
+			StrokeHistory history = new StrokeHistory();
+			// Every stroke held and the number drawn, as the history keeps undone strokes for redo
+			List<LineData> held = new ArrayList<LineData>();
+			int cursor = 0;
+
+			for (int i = 0; i < OPERATIONS; i++) {
+				int operation = random.nextInt(10);
+				if (operation < 5) {
+					LineData stroke = new LineData();
+					history.push(stroke);
+					held.subList(cursor, held.size()).clear();
+					held.add(stroke);
+					cursor++;
+				} else if (operation < 8) {
+					LineData undone = history.undo();
+					if (cursor == 0) {
+						assertNull(undone);
+					} else {
+						cursor--;
+						assertSame(held.get(cursor), undone);
+					}
+				} else {
+					LineData redone = history.redo();
+					if (cursor == held.size()) {
+						assertNull(redone);
+					} else {
+						assertSame(held.get(cursor), redone);
+						cursor++;
+					}
+				}
+
+				assertEquals(cursor, history.size());
+				assertEquals(cursor == 0, history.isEmpty());
+				assertEquals(cursor < held.size(), history.canRedo());
+				assertMatches(held.subList(0, cursor), history.snapshot());
+				if (cursor > 0) {
+					int index = random.nextInt(cursor);
+					assertSame(held.get(index), history.get(index));
+				}
+			}
+		}
+	}
+
+	@Test
+	void copyIsIndependent() {
+		StrokeHistory history = new StrokeHistory();
+		List<LineData> expected = new ArrayList<LineData>();
+		for (int i = 0; i < 100; i++) {
+			LineData stroke = new LineData();
+			history.push(stroke);
+			expected.add(stroke);
+		}
+		history.undo();
+		expected.remove(expected.size() - 1);
+
+		StrokeHistory copied = history.copy();
+		history.push(new LineData());
+		history.undo();
+		history.undo();
+
+		assertFalse(copied.canRedo());
+		assertMatches(expected, copied.snapshot());
+	}
+
+	@Test
+	void outOfRangeIsRejected() {
+		StrokeVector vector = StrokeVector.EMPTY.append(new LineData());
+		assertThrows(IndexOutOfBoundsException.class, () -> vector.get(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> vector.get(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> vector.take(2));
+
+		StrokeHistory history = new StrokeHistory();
+		history.push(new LineData());
+		history.undo();
+		assertThrows(IndexOutOfBoundsException.class, () -> history.get(0));
+	}
+
+	// Method checks that the vector holds the same strokes as the list in the same order
+	private static void assertMatches(List<LineData> expected, StrokeVector vector) {
+		assertEquals(expected.size(), vector.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i), vector.get(i));
+		}
+	}
+}
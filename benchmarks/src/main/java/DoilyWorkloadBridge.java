@@ -0,0 +1,145 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import benchmarks.DoilyWorkload;
+
+/**
+ * This class drives the simulator classes for the benchmarks, it sits in the default package so that it can
+ * 		use them and is reached by the benchmarks through the DoilyWorkload interface
+ *
+ */
+public class DoilyWorkloadBridge implements DoilyWorkload {
+	private static final int CANVAS_SIZE = 650;
+	private static final int THUMBNAIL_SIZE = 100;
+	// Number of strokes drawn in turn by drawStroke so successive calls are not identical
+	private static final int STROKE_POOL = 64;
+
+	private Display display = null;
+	private DoilyRenderer renderer = new DoilyRenderer();
+	private BufferedImage canvas = null;
+	// Opaque image the canvas is painted onto, most screens have no alpha
+	private BufferedImage screenImg = null;
+	private StrokeHistory history = new StrokeHistory();
+	private LineData[] strokes = null;
+	private int nextStroke = 0;
+	private double sectors = 0;
+	private Path galleryDir = null;
+
+	public void setup(int sectors, boolean isReflected, int penSize, int strokeLength, int historyDepth) {
+		this.sectors = sectors;
+		Random random = new Random(42);
+		strokes = new LineData[Math.max(STROKE_POOL, historyDepth)];
+		for (int i = 0; i < strokes.length; i++) {
+			strokes[i] = randomStroke(random, isReflected, penSize, strokeLength);
+		}
+		for (int i = 0; i < historyDepth; i++) {
+			history.push(strokes[i]);
+		}
+
+		// Renderer and canvas are set up as the display sets up its own without a screen
+		renderer.setStrategy(DoilyRenderer.Strategy.AUTO);
+		setCanvasType(BufferedImage.TYPE_INT_ARGB_PRE);
+		screenImg = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, BufferedImage.TYPE_INT_RGB);
+
+		// Display makes its surface on its first paint
+		display = new Display(CANVAS_SIZE, CANVAS_SIZE);
+		display.setSize(CANVAS_SIZE, CANVAS_SIZE);
+		BufferedImage panelImg = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, BufferedImage.TYPE_INT_ARGB);
+		display.paintComponent(panelImg.getGraphics());
+		display.setSectorVal(sectors);
+		display.displaySavedDoily(history);
+		display.awaitRendering();
+
+		try {
+			galleryDir = Files.createTempDirectory("doily-bench");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public Object drawStroke() {
+		LineData stroke = strokes[nextStroke];
+		nextStroke = (nextStroke + 1) % STROKE_POOL;
+		return renderer.render(canvas, stroke, sectors);
+	}
+
+	public void setCanvasType(int imageType) {
+		canvas = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, imageType);
+		for (int i = 0; i < history.size(); i++) {
+			renderer.render(canvas, history.get(i), sectors);
+		}
+	}
+
+	public Object eraseStroke() {
+		LineData stroke = strokes[nextStroke];
+		nextStroke = (nextStroke + 1) % STROKE_POOL;
+		return renderer.render(canvas, stroke.getPoints(), stroke.getPointCount(), sectors, stroke.getReflect(),
+				true, stroke.getPenSize(), null);
+	}
+
+	public Object paintCanvas() {
+		Graphics2D screenObj = screenImg.createGraphics();
+		screenObj.drawImage(canvas, 0, 0, null);
+		screenObj.dispose();
+		return screenImg;
+	}
+
+	public Object redraw() {
+		// Display draws on its render thread so each call waits for the drawing to be shown
+		display.displaySavedDoily(history);
+		display.awaitRendering();
+		return display;
+	}
+
+	public Object undoRedo() {
+		display.undo();
+		display.redo();
+		display.awaitRendering();
+		return display;
+	}
+
+	public Object saveToGallery() {
+		StrokeHistory savedHistory = history.copy();
+		BufferedImage thumbnailImg = Thumbnails.downscale(Thumbnails.copy(canvas), THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+		try {
+			DoilyArchive.write(galleryDir.resolve("slot-0.doily"), savedHistory, CANVAS_SIZE, CANVAS_SIZE, sectors);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return thumbnailImg;
+	}
+
+	public void tearDown() {
+		try {
+			Files.deleteIfExists(galleryDir.resolve("slot-0.doily"));
+			Files.deleteIfExists(galleryDir);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Method makes a stroke wandering from a random point inside the doily
+	private static LineData randomStroke(Random random, boolean isReflected, int penSize, int strokeLength) {
+		LineData stroke = new LineData();
+		float x = 100 + random.nextFloat() * (CANVAS_SIZE - 200);
+		float y = 100 + random.nextFloat() * (CANVAS_SIZE - 200);
+		for (int i = 0; i < strokeLength; i++) {
+			x = Math.max(0, Math.min(CANVAS_SIZE, x + (random.nextFloat() - 0.5f) * 12));
+			y = Math.max(0, Math.min(CANVAS_SIZE, y + (random.nextFloat() - 0.5f) * 12));
+			stroke.addPoint(x, y);
+		}
+		stroke.compact();
+		stroke.setReflect(isReflected);
+		stroke.setEraser(false);
+		stroke.setPenSize(penSize);
+		Color penColor = Color.getHSBColor(random.nextFloat(), 0.8f, 0.9f);
+		stroke.setPenColor(penColor.getRed(), penColor.getGreen(), penColor.getBlue());
+		return stroke;
+	}
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the benchmarks with the allocation rate from the GC profiler and writes the results
+ * 		as JSON to jmh-result-yyyyMMdd-HHmmss.json so runs can be compared
+ * Any JMH command line option may be given, for example a benchmark name and -p sectors=30 to run a subset
+ *
+ * Usage: java -jar benchmarks/target/benchmarks.jar [JMH options]
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+				.jvmArgsAppend("-Djava.awt.headless=true");
+		// Profiler and result file are only added where the command line has not chosen them
+		if (commandLine.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+			options.resultFormat(ResultFormatType.JSON).result("jmh-result-" + stamp + ".json");
+		}
+		new Runner(options.build()).run();
+	}
+}
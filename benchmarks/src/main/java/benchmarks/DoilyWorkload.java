@@ -0,0 +1,48 @@
+package benchmarks;
+
+/**
+ * This interface is the work measured by the benchmarks
+ * The simulator classes are in the default package, which a benchmark in a package can not refer to, so
+ * 		they are driven through this interface from DoilyWorkloadBridge which sits in the default package.
+ * 		The bridge is found by name once in setup, every measured call is an ordinary interface call
+ *
+ */
+public interface DoilyWorkload {
+
+	/**
+	 * Method makes the canvas, display and history for a set of parameters, strokes are random with a fixed seed
+	 * @param sectors number of sectors each stroke is repeated over
+	 * @param isReflected whether each copy is also drawn mirrored
+	 * @param penSize width of the pen
+	 * @param strokeLength number of points in each stroke
+	 * @param historyDepth number of strokes in the history
+	 */
+	void setup(int sectors, boolean isReflected, int penSize, int strokeLength, int historyDepth);
+
+	// Method draws the next stroke onto the canvas once per sector as Display.draw does
+	Object drawStroke();
+
+	/**
+	 * Method makes the canvas again with the history drawn on it, in the given format
+	 * @param imageType a BufferedImage type such as BufferedImage.TYPE_INT_ARGB_PRE
+	 */
+	void setCanvasType(int imageType);
+
+	// Method erases the next stroke from the canvas once per sector
+	Object eraseStroke();
+
+	// Method paints the canvas over an opaque image standing in for the screen, as the display paints each frame
+	Object paintCanvas();
+
+	// Method clears the display and replays the whole history as Display.redraw does
+	Object redraw();
+
+	// Method undoes and then redoes the last stroke on the display
+	Object undoRedo();
+
+	// Method makes everything a gallery save makes, the shared copy of the history, the thumbnail and the archive
+	Object saveToGallery();
+
+	// Method removes anything written during the benchmark
+	void tearDown();
+}
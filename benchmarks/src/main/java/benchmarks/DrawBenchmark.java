@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of drawing a single stroke onto the canvas for each sector
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawBenchmark {
+
+	@Param({"1", "8", "30", "100", "200"})
+	public int sectors;
+
+	@Param({"false", "true"})
+	public boolean reflect;
+
+	@Param({"1", "5", "20"})
+	public int penSize;
+
+	@Param({"16", "128", "1024"})
+	public int strokeLength;
+
+	private DoilyWorkload workload = null;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		workload = Workloads.create(sectors, reflect, penSize, strokeLength, 1);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		workload.tearDown();
+	}
+
+	@Benchmark
+	public Object drawStroke() {
+		return workload.drawStroke();
+	}
+}
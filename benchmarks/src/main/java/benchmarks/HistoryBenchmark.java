@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the work done over a whole history, replaying it, undoing and redoing, and saving it to the gallery
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+	@Param({"1", "30", "200"})
+	public int sectors;
+
+	@Param({"false", "true"})
+	public boolean reflect;
+
+	@Param({"2"})
+	public int penSize;
+
+	@Param({"64"})
+	public int strokeLength;
+
+	@Param({"10", "100", "1000"})
+	public int historyDepth;
+
+	private DoilyWorkload workload = null;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		workload = Workloads.create(sectors, reflect, penSize, strokeLength, historyDepth);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		workload.tearDown();
+	}
+
+	@Benchmark
+	public Object redraw() {
+		return workload.redraw();
+	}
+
+	@Benchmark
+	public Object undoRedo() {
+		return workload.undoRedo();
+	}
+
+	@Benchmark
+	public Object saveToGallery() {
+		return workload.saveToGallery();
+	}
+}
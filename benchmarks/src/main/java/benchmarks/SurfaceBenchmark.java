@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the format of the canvas, drawing and erasing a stroke on it and painting it onto the screen
+ * 		for a plain and a premultiplied canvas
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SurfaceBenchmark {
+
+	@Param({"ARGB", "ARGB_PRE"})
+	public String canvasType;
+
+	@Param({"8", "30"})
+	public int sectors;
+
+	@Param({"5"})
+	public int penSize;
+
+	@Param({"128"})
+	public int strokeLength;
+
+	@Param({"100"})
+	public int historyDepth;
+
+	private DoilyWorkload workload = null;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		workload = Workloads.create(sectors, false, penSize, strokeLength, historyDepth);
+		workload.setCanvasType(canvasType.equals("ARGB_PRE") ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_ARGB);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		workload.tearDown();
+	}
+
+	@Benchmark
+	public Object drawStroke() {
+		return workload.drawStroke();
+	}
+
+	@Benchmark
+	public Object eraseStroke() {
+		return workload.eraseStroke();
+	}
+
+	@Benchmark
+	public Object paintCanvas() {
+		return workload.paintCanvas();
+	}
+}
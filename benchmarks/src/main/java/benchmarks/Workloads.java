@@ -0,0 +1,25 @@
+package benchmarks;
+
+/**
+ * This class finds the bridge to the simulator classes for the benchmarks
+ *
+ */
+final class Workloads {
+	private static final String BRIDGE_CLASS = "DoilyWorkloadBridge";
+
+	private Workloads() {
+	}
+
+	// Method makes a new workload, set up for the given parameters
+	static DoilyWorkload create(int sectors, boolean isReflected, int penSize, int strokeLength, int historyDepth) {
+		// Set before any AWT class is loaded so no display is needed
+		System.setProperty("java.awt.headless", "true");
+		try {
+			DoilyWorkload workload = (DoilyWorkload) Class.forName(BRIDGE_CLASS).getDeclaredConstructor().newInstance();
+			workload.setup(sectors, isReflected, penSize, strokeLength, historyDepth);
+			return workload;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Benchmark bridge " + BRIDGE_CLASS + " could not be made", e);
+		}
+	}
+}